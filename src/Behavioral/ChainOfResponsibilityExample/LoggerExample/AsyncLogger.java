@@ -0,0 +1,197 @@
+package Behavioral.ChainOfResponsibilityExample.LoggerExample;
+
+import java.io.BufferedOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Asynchronous front end for a Logger chain.
+ * Callers only claim a slot in a preallocated ring buffer (one CAS) and publish the event into it;
+ * a single consumer thread runs the events through the chain into buffered wrappers of the streams
+ * the chain was writing to and flushes once per batch, so request threads never wait on console I/O.
+ * What happens when the ring is full is decided by the OverflowPolicy.
+ * close() writes out everything accepted and gives the chain its original streams back; events logged
+ * after that go straight through the chain on the caller's thread.
+ */
+public class AsyncLogger implements AutoCloseable {
+    public enum OverflowPolicy {
+        BLOCK,  //wait for the consumer to free a slot
+        DROP,   //discard the event
+        SAMPLE  //keep one event in every sampleRate, discard the rest
+    }
+
+    private static final int MAX_BATCH=256;
+
+    private final Logger chain;
+    private final Slot[] ring;
+    private final int mask;
+    private final OverflowPolicy policy;
+    private final int sampleRate;
+    private final AtomicLong claimed=new AtomicLong();   //next sequence a producer may claim
+    private final AtomicLong consumed=new AtomicLong();  //every sequence below this has been logged
+    private final AtomicLong overflowed=new AtomicLong();
+    private final AtomicLong dropped=new AtomicLong();
+    private final AtomicInteger inFlight=new AtomicInteger(); //producers between their running check and publishing
+    private final List<Logger> loggers=new ArrayList<>();
+    private final List<PrintStream> previousOutputs=new ArrayList<>();
+    private final List<PrintStream> batchOutputs;
+    private final Thread consumer;
+    private volatile boolean running=true;
+    private boolean closed;
+
+    private static final class Slot {
+        volatile long sequence=-1; //sequence of the event currently published in this slot
+        int levels;
+        String msg;
+    }
+
+    public AsyncLogger(Logger chain, int capacity, OverflowPolicy policy) {
+        this(chain, capacity, policy, 100);
+    }
+
+    public AsyncLogger(Logger chain, int capacity, OverflowPolicy policy, int sampleRate) {
+        if (Integer.bitCount(capacity)!=1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.chain=chain;
+        this.ring=new Slot[capacity];
+        for (int i=0; i<capacity; i++) {
+            ring[i]=new Slot();
+        }
+        this.mask=capacity-1;
+        this.policy=policy;
+        this.sampleRate=sampleRate;
+        //Every distinct stream in the chain gets one buffered wrapper, so output still lands where it was configured
+        Map<PrintStream, PrintStream> buffered=new IdentityHashMap<>();
+        for (Logger logger=chain; logger!=null; logger=logger.nextLevelLogger) {
+            loggers.add(logger);
+            previousOutputs.add(logger.out);
+            logger.out=buffered.computeIfAbsent(logger.out, out -> new PrintStream(new BufferedOutputStream(out, 1<<16), false));
+        }
+        this.batchOutputs=new ArrayList<>(buffered.values());
+        this.consumer=new Thread(this::consume, "async-logger");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    public void logMessage(int levels, String msg) {
+        if (running) {
+            inFlight.incrementAndGet();
+            try {
+                if (running) {
+                    enqueue(levels, msg);
+                    return;
+                }
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+        logAfterClose(levels, msg);
+    }
+
+    private void enqueue(int levels, String msg) {
+        long sequence;
+        boolean admitted=false; //the overflow policy has already let this event wait for a slot
+        while (true) {
+            sequence=claimed.get();
+            if (sequence-consumed.get()>=ring.length) {
+                if (!admitted && !keepOnOverflow()) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                admitted=true;
+                LockSupport.parkNanos(1_000);
+                continue;
+            }
+            if (claimed.compareAndSet(sequence, sequence+1)) {
+                break;
+            }
+        }
+        Slot slot=ring[(int) sequence & mask];
+        slot.levels=levels;
+        slot.msg=msg;
+        slot.sequence=sequence; //volatile write publishes levels and msg to the consumer
+    }
+
+    //Decides once per event whether it waits for the consumer to free a slot or is dropped
+    private boolean keepOnOverflow() {
+        switch (policy) {
+            case BLOCK:
+                return true;
+            case SAMPLE:
+                return overflowed.incrementAndGet()%sampleRate==0;
+            default:
+                return false;
+        }
+    }
+
+    //Waits for close() to hand the original streams back, then logs on the caller's thread
+    private synchronized void logAfterClose(int levels, String msg) {
+        chain.logMessage(levels, msg);
+    }
+
+    private void consume() {
+        long next=0;
+        //Exit only once closed with no producer still publishing; one that arrives later sees running==false
+        while (running || inFlight.get()>0 || next<claimed.get()) {
+            int batch=0;
+            Slot slot=ring[(int) next & mask];
+            while (batch<MAX_BATCH && slot.sequence==next) {
+                String msg=slot.msg;
+                int levels=slot.levels;
+                slot.msg=null;
+                chain.logMessage(levels, msg);
+                next++;
+                batch++;
+                slot=ring[(int) next & mask];
+            }
+            if (batch>0) {
+                flushBatchOutputs();
+                consumed.set(next);
+            } else {
+                LockSupport.parkNanos(50_000);
+            }
+        }
+        flushBatchOutputs();
+    }
+
+    private void flushBatchOutputs() {
+        for (PrintStream out : batchOutputs) {
+            out.flush();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    //Stops the consumer once every event already accepted has been written out and restores the chain's streams
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        running=false;
+        boolean interrupted=false;
+        while (consumer.isAlive()) {
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                interrupted=true; //finish the drain anyway, accepted events must not be lost
+            }
+        }
+        for (int i=0; i<loggers.size(); i++) {
+            loggers.get(i).out=previousOutputs.get(i);
+        }
+        closed=true;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
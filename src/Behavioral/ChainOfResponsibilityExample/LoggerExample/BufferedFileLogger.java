@@ -0,0 +1,34 @@
+package Behavioral.ChainOfResponsibilityExample.LoggerExample;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+//File sink for the Logger chain on a plain BufferedWriter; the baseline for MappedFileLogger
+public class BufferedFileLogger extends Logger implements AutoCloseable {
+    private final BufferedWriter writer;
+
+    public BufferedFileLogger(int levels, Path file) throws IOException {
+        this.levels=levels;
+        this.writer=Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected synchronized void displayLogInfo(String msg) {
+        try {
+            writer.write("FILE LOGGER INFO: ");
+            writer.write(msg);
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
@@ -20,5 +20,15 @@ public class Client {
         chainLogger.logMessage(Logger.OUTPUTINFO, "Enter the sequence of values ");
         chainLogger.logMessage(Logger.ERRORINFO, "An error is occured now");
         chainLogger.logMessage(Logger.DEBUGINFO, "This was the error now debugging is compeled");
+
+        CompiledLogger compiledLogger = CompiledLogger.compile(doChaining());
+        compiledLogger.logMessage(Logger.ERRORINFO, "Dispatched through the compiled table");
+        compiledLogger.logMessage(0, () -> "Never built, no logger handles level 0");
+
+        try (AsyncLogger asyncLogger = new AsyncLogger(doChaining(), 1024, AsyncLogger.OverflowPolicy.BLOCK)) {
+            for (int i = 0; i < 3; i++) {
+                asyncLogger.logMessage(Logger.ERRORINFO, "Async error " + i);
+            }
+        }
     }
 }
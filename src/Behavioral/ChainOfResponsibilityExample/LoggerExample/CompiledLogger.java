@@ -0,0 +1,72 @@
+package Behavioral.ChainOfResponsibilityExample.LoggerExample;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/*
+ * Logger chain flattened into a per-level dispatch table.
+ * Logger.logMessage walks every link of the chain and re-checks levels at each hop; here the chain is
+ * walked once, up front, and handlersByLevel[level] lists exactly the loggers that would display a
+ * message of that level, in chain order. Logging is then one array lookup plus a loop over matching
+ * handlers, and a level nobody handles costs a single length check - the Supplier overload does not
+ * even build the message.
+ * The table is a snapshot: compile again after changing the chain.
+ */
+public class CompiledLogger {
+    private static final Logger[] NONE=new Logger[0];
+
+    private final Logger[][] handlersByLevel;
+
+    private CompiledLogger(Logger[][] handlersByLevel) {
+        this.handlersByLevel=handlersByLevel;
+    }
+
+    public static CompiledLogger compile(Logger chain) {
+        int maxLevel=0;
+        for (Logger logger=chain; logger!=null; logger=logger.nextLevelLogger) {
+            maxLevel=Math.max(maxLevel, logger.levels);
+        }
+        Logger[][] handlersByLevel=new Logger[maxLevel+1][];
+        for (int level=0; level<=maxLevel; level++) {
+            List<Logger> handlers=new ArrayList<>();
+            for (Logger logger=chain; logger!=null; logger=logger.nextLevelLogger) {
+                if (logger.levels<=level) {
+                    handlers.add(logger);
+                }
+            }
+            handlersByLevel[level]=handlers.isEmpty() ? NONE : handlers.toArray(NONE);
+        }
+        return new CompiledLogger(handlersByLevel);
+    }
+
+    private Logger[] handlersFor(int levels) {
+        if (levels<0) {
+            return NONE;
+        }
+        //Every logger handles levels at or above its own, so anything past the table matches the last row
+        return handlersByLevel[Math.min(levels, handlersByLevel.length-1)];
+    }
+
+    public boolean isEnabled(int levels) {
+        return handlersFor(levels).length>0;
+    }
+
+    public void logMessage(int levels, String msg) {
+        for (Logger handler : handlersFor(levels)) {
+            handler.displayLogInfo(msg);
+        }
+    }
+
+    //The supplier is only invoked when some logger handles the level
+    public void logMessage(int levels, Supplier<String> msgSupplier) {
+        Logger[] handlers=handlersFor(levels);
+        if (handlers.length==0) {
+            return;
+        }
+        String msg=msgSupplier.get();
+        for (Logger handler : handlers) {
+            handler.displayLogInfo(msg);
+        }
+    }
+}
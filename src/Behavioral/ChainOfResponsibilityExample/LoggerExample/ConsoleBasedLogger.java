@@ -6,6 +6,6 @@ public class ConsoleBasedLogger extends Logger {
     }
     @Override
     protected void displayLogInfo(String msg) {
-        System.out.println("CONSOLE LOGGER INFO: "+msg);
+        out.println("CONSOLE LOGGER INFO: "+msg);
     }
 }
@@ -6,6 +6,6 @@ public class DebugBasedLogger extends Logger {
     }
     @Override
     protected void displayLogInfo(String msg) {
-        System.out.println("DEBUG LOGGER INFO: "+msg);
+        out.println("DEBUG LOGGER INFO: "+msg);
     }
 }
@@ -6,6 +6,6 @@ public class ErrorBasedLogger extends Logger {
     }
     @Override
     protected void displayLogInfo(String msg) {
-        System.out.println("ERROR LOGGER INFO: "+msg);
+        out.println("ERROR LOGGER INFO: "+msg);
     }
 }
@@ -0,0 +1,62 @@
+package Behavioral.ChainOfResponsibilityExample.LoggerExample;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+//Throughput and p99 latency of the file sinks: java ...FileLoggerBenchmark [threads] [messagesPerThread]
+public class FileLoggerBenchmark {
+    public static void main(String[] args) throws Exception {
+        int threads=args.length>0 ? Integer.parseInt(args[0]) : 16;
+        int messagesPerThread=args.length>1 ? Integer.parseInt(args[1]) : 100_000;
+        Path directory=Files.createTempDirectory("logger-bench");
+
+        for (int round=0; round<3; round++) {
+            try (MappedFileLogger mapped=new MappedFileLogger(Logger.OUTPUTINFO, directory, "mapped", 64<<20, 10_000)) {
+                report("MappedFileLogger  ", mapped, threads, messagesPerThread);
+            }
+            try (BufferedFileLogger buffered=new BufferedFileLogger(Logger.OUTPUTINFO, directory.resolve("buffered.log"))) {
+                report("BufferedFileLogger", buffered, threads, messagesPerThread);
+            }
+        }
+
+        try (DirectoryStream<Path> files=Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static void report(String label, Logger logger, int threads, int messagesPerThread) throws InterruptedException {
+        long[][] latencies=new long[threads][messagesPerThread];
+        Thread[] producers=new Thread[threads];
+        long start=System.nanoTime();
+        for (int t=0; t<threads; t++) {
+            long[] mine=latencies[t];
+            int thread=t;
+            producers[t]=new Thread(() -> {
+                for (int i=0; i<messagesPerThread; i++) {
+                    long before=System.nanoTime();
+                    logger.logMessage(Logger.OUTPUTINFO, "order " + i + " accepted by worker " + thread);
+                    mine[i]=System.nanoTime()-before;
+                }
+            });
+            producers[t].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        long elapsedNs=System.nanoTime()-start;
+
+        long[] all=new long[threads*messagesPerThread];
+        for (int t=0; t<threads; t++) {
+            System.arraycopy(latencies[t], 0, all, t*messagesPerThread, messagesPerThread);
+        }
+        Arrays.sort(all);
+        System.out.println(label+": "+(long) all.length*1_000_000_000L/elapsedNs+" msgs/s, p50 "
+                +all[all.length/2]+" ns, p99 "+all[(int) (all.length*0.99)]+" ns");
+    }
+}
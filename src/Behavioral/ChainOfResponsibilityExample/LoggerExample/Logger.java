@@ -1,14 +1,24 @@
 package Behavioral.ChainOfResponsibilityExample.LoggerExample;
 
+import java.io.PrintStream;
+
 public abstract class Logger {
     public static int OUTPUTINFO=1;
     public static int ERRORINFO=2;
     public static int DEBUGINFO=3;
     protected int levels;
     protected Logger nextLevelLogger;
+    protected PrintStream out=System.out;
     public void setNextLevelLogger(Logger nextLevelLogger) {
         this.nextLevelLogger = nextLevelLogger;
     }
+    //Redirects this logger and every logger after it in the chain
+    public void setOutput(PrintStream out) {
+        this.out = out;
+        if (nextLevelLogger!=null) {
+            nextLevelLogger.setOutput(out);
+        }
+    }
     public void logMessage(int levels, String msg){
         if(this.levels<=levels){
             displayLogInfo(msg);
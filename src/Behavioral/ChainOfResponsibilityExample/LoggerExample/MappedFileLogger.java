@@ -0,0 +1,118 @@
+package Behavioral.ChainOfResponsibilityExample.LoggerExample;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * File sink for the Logger chain backed by memory-mapped, preallocated log segments.
+ * Messages are encoded straight into the mapping (ASCII is copied char by char, no intermediate
+ * byte[]), and the mapping is forced to disk once every forceEvery messages instead of per write.
+ * When a message no longer fits, the segment is forced, trimmed to what was written and the next
+ * segment (dir/<name>-<n>.log) is mapped. A new logger numbers its segments after the highest one
+ * already in the directory, so a restart never overwrites earlier logs.
+ */
+public class MappedFileLogger extends Logger implements AutoCloseable {
+    private static final byte[] PREFIX="FILE LOGGER INFO: ".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path directory;
+    private final String name;
+    private final int segmentBytes;
+    private final int forceEvery;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private int unforced;
+
+    public MappedFileLogger(int levels, Path directory, String name, int segmentBytes, int forceEvery) throws IOException {
+        this.levels=levels;
+        this.directory=directory;
+        this.name=name;
+        this.segmentBytes=segmentBytes;
+        this.forceEvery=forceEvery;
+        Files.createDirectories(directory);
+        this.segmentIndex=nextSegmentIndex(directory, name);
+        openSegment();
+    }
+
+    @Override
+    protected synchronized void displayLogInfo(String msg) {
+        if (msg==null) {
+            msg="null"; //as println prints it
+        }
+        int maxBytes=PREFIX.length+msg.length()*3+1; //worst case UTF-8 expansion
+        if (segment.remaining()<maxBytes) {
+            if (maxBytes>segmentBytes) {
+                throw new IllegalArgumentException("Message larger than a log segment");
+            }
+            roll();
+        }
+        segment.put(PREFIX);
+        encode(msg);
+        segment.put((byte) '\n');
+        if (++unforced>=forceEvery) {
+            segment.force();
+            unforced=0;
+        }
+    }
+
+    private void encode(String msg) {
+        int length=msg.length();
+        for (int i=0; i<length; i++) {
+            char c=msg.charAt(i);
+            if (c>=0x80) {
+                segment.put(msg.substring(i).getBytes(StandardCharsets.UTF_8)); //rare non-ASCII tail
+                return;
+            }
+            segment.put((byte) c);
+        }
+    }
+
+    private void roll() {
+        try {
+            closeSegment();
+            openSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void openSegment() throws IOException {
+        Path file=directory.resolve(String.format("%s-%05d.log", name, segmentIndex++));
+        channel=FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment=channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    }
+
+    private static int nextSegmentIndex(Path directory, String name) throws IOException {
+        int next=0;
+        try (DirectoryStream<Path> files=Files.newDirectoryStream(directory, name+"-*.log")) {
+            for (Path file : files) {
+                String fileName=file.getFileName().toString();
+                try {
+                    next=Math.max(next, Integer.parseInt(fileName.substring(name.length()+1, fileName.length()-4))+1);
+                } catch (NumberFormatException e) {
+                    //not one of our segments, e.g. <name>-old.log
+                }
+            }
+        }
+        return next;
+    }
+
+    private void closeSegment() throws IOException {
+        segment.force();
+        unforced=0;
+        channel.truncate(segment.position()); //drop the unused, preallocated tail
+        channel.close();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeSegment();
+    }
+}
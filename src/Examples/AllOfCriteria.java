@@ -0,0 +1,24 @@
+package Examples;
+
+// Class to represent an n-ary AND over a flat array of clauses
+final class AllOfCriteria extends ICritera {
+    private final ICritera[] clauses;
+
+    public AllOfCriteria(ICritera[] clauses) {
+        this.clauses = clauses;
+    }
+
+    public ICritera[] getClauses() {
+        return clauses;
+    }
+
+    @Override
+    public boolean apply(IFileNode file) {
+        for (ICritera clause : clauses) {
+            if (!clause.apply(file)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
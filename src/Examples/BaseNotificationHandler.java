@@ -0,0 +1,16 @@
+package Examples;
+
+import java.util.List;
+
+// Abstract base class for notification handlers
+abstract class BaseNotificationHandler {
+    public abstract void send(IMessage message);
+    public abstract Channel getChannel();
+
+    // Providers with a bulk API override this to send the whole list in one request
+    public void sendBatch(List<IMessage> messages) {
+        for (IMessage message : messages) {
+            send(message);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package Examples;
+
+// Class to build criteria using builder pattern
+class BuildCriteria {
+    private ICritera buildCriteria;
+
+    public BuildCriteria() {
+        this.buildCriteria = new DefaultCriteria();
+    }
+
+    public BuildCriteria andOp(ICritera criteria) {
+        this.buildCriteria = new ANDCriteria(this.buildCriteria, criteria);
+        return this;
+    }
+
+    public BuildCriteria orOp(ICritera criteria) {
+        this.buildCriteria = new ORCriteria(this.buildCriteria, criteria);
+        return this;
+    }
+
+    public ICritera build() {
+        return this.buildCriteria;
+    }
+
+    // Method to build a flattened, reordered equivalent of the criteria (see CriteriaCompiler)
+    public ICritera compile() {
+        return CriteriaCompiler.compile(this.buildCriteria);
+    }
+}
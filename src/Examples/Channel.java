@@ -0,0 +1,6 @@
+package Examples;
+
+// Enum to represent different channels for messaging
+enum Channel {
+    DEFAULT, EMAIL, SMS
+}
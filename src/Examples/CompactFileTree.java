@@ -0,0 +1,227 @@
+package Examples;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+Compact, columnar (struct-of-arrays) store for an IFileNode tree.
+
+Instead of one object per node plus an ArrayList per directory, every node is a row in a set of
+parallel primitive arrays:
+    parent[row]      row of the enclosing directory (-1 for the root)
+    subtreeEnd[row]  one past the last row of the node's subtree (rows are laid out in pre-order,
+                     so every subtree is a contiguous range and a scan is a linear sweep)
+    size[row]        file size, or aggregated size for directories
+    type[row]        Type ordinal
+    nameId[row]      id in the shared NameDictionary
+    extensionId[row] id in the shared NameDictionary, -1 for directories
+That is ~21 bytes per node, with every distinct name/extension string stored once.
+
+Criteria query the store through CompactFileNode, a flyweight File that reads its row's columns,
+so every ICritera works unchanged. FusedCriteria (see CriteriaCompiler) is evaluated directly on the
+columns by comparing dictionary ids and sizes, without touching the flyweight at all.
+*/
+class CompactFileTree {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final Type[] TYPES = Type.values();
+
+    private final NameDictionary names = new NameDictionary();
+    private int[] parent = new int[INITIAL_CAPACITY];
+    private int[] subtreeEnd = new int[INITIAL_CAPACITY];
+    private int[] size = new int[INITIAL_CAPACITY];
+    private byte[] type = new byte[INITIAL_CAPACITY];
+    private int[] nameId = new int[INITIAL_CAPACITY];
+    private int[] extensionId = new int[INITIAL_CAPACITY];
+    private int count;
+
+    // Builder state: rows of the directories currently open, innermost last
+    private int[] openDirectories = new int[64];
+    private int depth;
+
+    // Method to copy an object tree into a compact store
+    public static CompactFileTree of(IFileNode root) {
+        CompactFileTree tree = new CompactFileTree();
+        tree.copy(root);
+        return tree.seal();
+    }
+
+    private void copy(IFileNode node) {
+        if (node instanceof Directory) {
+            beginDirectory(node.getName());
+            for (IFileNode child : ((Directory) node).getChildren()) {
+                copy(child);
+            }
+            endDirectory();
+        } else if (node instanceof File) {
+            addFile(node.getName(), node.getSize(), ((File) node).getExtension());
+        }
+    }
+
+    // Methods to build a store directly in pre-order, without ever creating IFileNode objects
+    public int beginDirectory(String name) {
+        int row = append(Type.DIRECTORY, name, null, 0);
+        if (depth == openDirectories.length) {
+            openDirectories = Arrays.copyOf(openDirectories, depth * 2);
+        }
+        openDirectories[depth++] = row;
+        return row;
+    }
+
+    public int addFile(String name, int fileSize, String extension) {
+        int row = append(Type.FILE, name, extension, fileSize);
+        subtreeEnd[row] = row + 1;
+        for (int i = 0; i < depth; i++) {
+            size[openDirectories[i]] += fileSize;
+        }
+        return row;
+    }
+
+    public void endDirectory() {
+        if (depth == 0) {
+            throw new IllegalStateException("No directory is open");
+        }
+        int row = openDirectories[--depth];
+        subtreeEnd[row] = count;
+    }
+
+    // Method to finish building; trims the columns to their final length
+    public CompactFileTree seal() {
+        if (depth != 0) {
+            throw new IllegalStateException(depth + " directories are still open");
+        }
+        parent = Arrays.copyOf(parent, count);
+        subtreeEnd = Arrays.copyOf(subtreeEnd, count);
+        size = Arrays.copyOf(size, count);
+        type = Arrays.copyOf(type, count);
+        nameId = Arrays.copyOf(nameId, count);
+        extensionId = Arrays.copyOf(extensionId, count);
+        return this;
+    }
+
+    private int append(Type nodeType, String name, String extension, int nodeSize) {
+        if (depth == 0 && count > 0) {
+            throw new IllegalStateException("Only one root node is allowed");
+        }
+        if (count == parent.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, count * 2);
+            parent = Arrays.copyOf(parent, capacity);
+            subtreeEnd = Arrays.copyOf(subtreeEnd, capacity);
+            size = Arrays.copyOf(size, capacity);
+            type = Arrays.copyOf(type, capacity);
+            nameId = Arrays.copyOf(nameId, capacity);
+            extensionId = Arrays.copyOf(extensionId, capacity);
+        }
+        int row = count++;
+        parent[row] = depth == 0 ? -1 : openDirectories[depth - 1];
+        size[row] = nodeSize;
+        type[row] = (byte) nodeType.ordinal();
+        nameId[row] = names.intern(name);
+        extensionId[row] = extension == null ? -1 : names.intern(extension);
+        return row;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getParent(int row) {
+        return parent[row];
+    }
+
+    public int getSubtreeEnd(int row) {
+        return subtreeEnd[row];
+    }
+
+    public int getSize(int row) {
+        return size[row];
+    }
+
+    public Type getType(int row) {
+        return TYPES[type[row]];
+    }
+
+    public String getName(int row) {
+        return names.lookup(nameId[row]);
+    }
+
+    public String getExtension(int row) {
+        return extensionId[row] < 0 ? null : names.lookup(extensionId[row]);
+    }
+
+    // Method to find matching files in the subtree rooted at row; results are pinned flyweights
+    public List<IFileNode> find(int row, ICritera criteria) {
+        List<IFileNode> result = new ArrayList<>();
+        int end = subtreeEnd[row];
+        byte fileType = (byte) Type.FILE.ordinal();
+
+        if (criteria instanceof FusedCriteria) {
+            FusedCriteria fused = (FusedCriteria) criteria;
+            int wantedName = fused.hasName() ? names.find(fused.getName()) : -1;
+            int wantedExtension = fused.hasExtension() ? names.find(fused.getExtension()) : -1;
+            if ((fused.hasName() && wantedName < 0) || (fused.hasExtension() && wantedExtension < 0)) {
+                return result; // the string never occurs in the tree
+            }
+            int minSize = fused.getMinSize();
+            for (int i = row; i < end; i++) {
+                if (type[i] == fileType && size[i] >= minSize
+                        && (wantedName < 0 || nameId[i] == wantedName)
+                        && (wantedExtension < 0 || extensionId[i] == wantedExtension)) {
+                    result.add(new CompactFileNode(this, i));
+                }
+            }
+            return result;
+        }
+
+        CompactFileNode cursor = new CompactFileNode(this, row);
+        for (int i = row; i < end; i++) {
+            if (type[i] == fileType) {
+                cursor.moveTo(i);
+                if (criteria.apply(cursor)) {
+                    result.add(new CompactFileNode(this, i));
+                }
+            }
+        }
+        return result;
+    }
+}
+
+// Class to represent a row of a CompactFileTree as a File, so existing criteria can evaluate it
+class CompactFileNode extends File {
+    private final CompactFileTree tree;
+    private int row;
+
+    public CompactFileNode(CompactFileTree tree, int row) {
+        super(null, 0, null);
+        this.tree = tree;
+        this.row = row;
+    }
+
+    void moveTo(int row) {
+        this.row = row;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    @Override
+    public String getName() {
+        return tree.getName(row);
+    }
+
+    @Override
+    public int getSize() {
+        return tree.getSize(row);
+    }
+
+    @Override
+    public String getExtension() {
+        return tree.getExtension(row);
+    }
+
+    @Override
+    public String toString() {
+        return tree.getType(row) + "(" + getName() + ")";
+    }
+}
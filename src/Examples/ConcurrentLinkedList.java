@@ -0,0 +1,167 @@
+package Examples;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Lock-free, append-only variant of LinkedList for many concurrent producers.
+
+Appends follow the Michael-Scott queue: link the new node with a CAS on the last node's next pointer,
+then swing the tail with a second CAS. A thread that finds the tail lagging helps advance it instead of
+waiting, so no append ever blocks on another. Elements appended by one thread keep their order.
+
+Iteration is weakly consistent: it never throws ConcurrentModificationException, sees every element
+that was linked before the iterator was created, and may or may not see elements appended while it runs.
+*/
+class ConcurrentLinkedList implements Iterable<Integer> {
+    private static final VarHandle NEXT;
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            NEXT = lookup.findVarHandle(Node.class, "next", Node.class);
+            TAIL = lookup.findVarHandle(ConcurrentLinkedList.class, "tail", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final class Node {
+        final int val;
+        volatile Node next;
+
+        Node(int val) {
+            this.val = val;
+        }
+    }
+
+    private final Node head = new Node(0); // sentinel, never removed
+    private volatile Node tail = head;
+    private final LongAdder size = new LongAdder(); // striped counter, so size tracking adds no contention
+
+    public void add(int val) {
+        Node newNode = new Node(val);
+        for (;;) {
+            Node last = tail;
+            Node next = last.next;
+            if (next == null) {
+                if (NEXT.compareAndSet(last, null, newNode)) {
+                    TAIL.compareAndSet(this, last, newNode); // failure is fine, someone already helped
+                    size.increment();
+                    return;
+                }
+            } else {
+                TAIL.compareAndSet(this, last, next); // tail is lagging, help it along
+            }
+        }
+    }
+
+    // Number of appended elements; may lag slightly behind appends still in progress
+    public long size() {
+        return size.sum();
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new ConcurrentLinkedListIterator();
+    }
+
+    private class ConcurrentLinkedListIterator implements PrimitiveIterator.OfInt {
+        private Node current = head.next;
+
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
+
+        @Override
+        public int nextInt() {
+            Node node = current;
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            current = node.next;
+            return node.val;
+        }
+    }
+
+    // Stress test and throughput comparison: java Examples.ConcurrentLinkedList [threads] [appendsPerThread]
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int appendsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        for (int round = 0; round < 3; round++) {
+            ConcurrentLinkedList lockFree = new ConcurrentLinkedList();
+            long lockFreeMs = run(threads, appendsPerThread, lockFree::add);
+            verify(lockFree, threads, appendsPerThread);
+
+            LinkedList locked = new LinkedList();
+            long lockedMs = run(threads, appendsPerThread, val -> {
+                synchronized (locked) {
+                    locked.add(val);
+                }
+            });
+
+            long total = (long) threads * appendsPerThread;
+            System.out.println("round " + round + ": lock-free " + lockFreeMs + " ms (" + total * 1000 / Math.max(1, lockFreeMs)
+                    + " appends/s), synchronized LinkedList " + lockedMs + " ms (" + total * 1000 / Math.max(1, lockedMs) + " appends/s)");
+        }
+    }
+
+    private interface Appender {
+        void add(int val);
+    }
+
+    // Each producer appends thread * appendsPerThread + i for i = 0..appendsPerThread-1
+    private static long run(int threads, int appendsPerThread, Appender appender) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int base = t * appendsPerThread;
+            Thread producer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < appendsPerThread; i++) {
+                    appender.add(base + i);
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        return (System.nanoTime() - begin) / 1_000_000;
+    }
+
+    // Every element must be present exactly once and each producer's elements must keep their order
+    private static void verify(ConcurrentLinkedList list, int threads, int appendsPerThread) {
+        int[] expectedNext = new int[threads];
+        long count = 0;
+        for (PrimitiveIterator.OfInt it = list.iterator(); it.hasNext(); ) {
+            int val = it.nextInt();
+            int producer = val / appendsPerThread;
+            if (val % appendsPerThread != expectedNext[producer]) {
+                throw new IllegalStateException("Producer " + producer + " out of order at " + val);
+            }
+            expectedNext[producer]++;
+            count++;
+        }
+        if (count != (long) threads * appendsPerThread || list.size() != count) {
+            throw new IllegalStateException("Expected " + (long) threads * appendsPerThread + " elements, found " + count);
+        }
+    }
+}
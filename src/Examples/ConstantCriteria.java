@@ -0,0 +1,18 @@
+package Examples;
+
+// Class to represent a criteria with a constant outcome, produced when the compiler folds a tree away
+final class ConstantCriteria extends ICritera {
+    static final ConstantCriteria TRUE = new ConstantCriteria(true);
+    static final ConstantCriteria FALSE = new ConstantCriteria(false);
+
+    private final boolean value;
+
+    private ConstantCriteria(boolean value) {
+        this.value = value;
+    }
+
+    @Override
+    public boolean apply(IFileNode file) {
+        return value;
+    }
+}
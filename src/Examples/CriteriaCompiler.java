@@ -0,0 +1,152 @@
+package Examples;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+Criteria compiler for FindLibrary.
+
+BuildCriteria.andOp/orOp wrap the previous criteria on every call, so an n-clause filter becomes an
+n-deep chain of binary ANDCriteria/ORCriteria nodes sitting on top of a DefaultCriteria leaf.
+CriteriaCompiler.compile rewrites such a tree into an equivalent, flat one:
+    - DefaultCriteria is folded away (true AND x == x, true OR x == true)
+    - nested AND/OR nodes are flattened into n-ary AllOfCriteria/AnyOfCriteria
+    - the name/extension/size leaves of an AND are fused into a single FusedCriteria that checks
+      primitive fields inline, with no virtual calls
+    - the remaining clauses are ordered cheapest-first so short-circuiting skips the expensive ones
+Criteria are side-effect free, so reordering clauses never changes the result.
+*/
+class CriteriaCompiler {
+    private static final Comparator<ICritera> BY_COST = Comparator.comparingInt(CriteriaCompiler::cost);
+
+    private CriteriaCompiler() {
+    }
+
+    public static ICritera compile(ICritera criteria) {
+        if (criteria instanceof DefaultCriteria) {
+            return ConstantCriteria.TRUE;
+        }
+        if (criteria instanceof ANDCriteria || criteria instanceof AllOfCriteria) {
+            return compileAnd(criteria);
+        }
+        if (criteria instanceof ORCriteria || criteria instanceof AnyOfCriteria) {
+            return compileOr(criteria);
+        }
+        if (criteria instanceof FileNameCriteria || criteria instanceof ExtensionCriteria
+                || criteria instanceof GreaterThanSizeCriteria) {
+            return FusedCriteria.of(criteria);
+        }
+        return criteria;
+    }
+
+    private static ICritera compileAnd(ICritera criteria) {
+        List<ICritera> conjuncts = new ArrayList<>();
+        collectAnd(criteria, conjuncts);
+
+        FusedCriteria fused = null;
+        List<ICritera> rest = new ArrayList<>();
+        for (ICritera conjunct : conjuncts) {
+            ICritera compiled = compile(conjunct);
+            if (compiled == ConstantCriteria.FALSE) {
+                return ConstantCriteria.FALSE;
+            }
+            if (compiled == ConstantCriteria.TRUE) {
+                continue;
+            }
+            if (compiled instanceof FusedCriteria) {
+                fused = fused == null ? (FusedCriteria) compiled : fused.and((FusedCriteria) compiled);
+                if (fused == null) {
+                    return ConstantCriteria.FALSE; // e.g. two different exact names
+                }
+            } else {
+                rest.add(compiled);
+            }
+        }
+        if (fused != null) {
+            rest.add(fused);
+        }
+        rest.sort(BY_COST);
+        if (rest.isEmpty()) {
+            return ConstantCriteria.TRUE;
+        }
+        return rest.size() == 1 ? rest.get(0) : new AllOfCriteria(rest.toArray(new ICritera[0]));
+    }
+
+    private static ICritera compileOr(ICritera criteria) {
+        List<ICritera> disjuncts = new ArrayList<>();
+        collectOr(criteria, disjuncts);
+
+        List<ICritera> rest = new ArrayList<>();
+        for (ICritera disjunct : disjuncts) {
+            ICritera compiled = compile(disjunct);
+            if (compiled == ConstantCriteria.TRUE) {
+                return ConstantCriteria.TRUE;
+            }
+            if (compiled != ConstantCriteria.FALSE) {
+                rest.add(compiled);
+            }
+        }
+        rest.sort(BY_COST);
+        if (rest.isEmpty()) {
+            return ConstantCriteria.FALSE;
+        }
+        return rest.size() == 1 ? rest.get(0) : new AnyOfCriteria(rest.toArray(new ICritera[0]));
+    }
+
+    private static void collectAnd(ICritera criteria, List<ICritera> out) {
+        if (criteria instanceof ANDCriteria) {
+            collectAnd(((ANDCriteria) criteria).getCriteria1(), out);
+            collectAnd(((ANDCriteria) criteria).getCriteria2(), out);
+        } else if (criteria instanceof AllOfCriteria) {
+            for (ICritera clause : ((AllOfCriteria) criteria).getClauses()) {
+                collectAnd(clause, out);
+            }
+        } else {
+            out.add(criteria);
+        }
+    }
+
+    private static void collectOr(ICritera criteria, List<ICritera> out) {
+        if (criteria instanceof ORCriteria) {
+            collectOr(((ORCriteria) criteria).getCriteria1(), out);
+            collectOr(((ORCriteria) criteria).getCriteria2(), out);
+        } else if (criteria instanceof AnyOfCriteria) {
+            for (ICritera clause : ((AnyOfCriteria) criteria).getClauses()) {
+                collectOr(clause, out);
+            }
+        } else {
+            out.add(criteria);
+        }
+    }
+
+    // Rough relative evaluation cost, used only for ordering clauses
+    static int cost(ICritera criteria) {
+        if (criteria instanceof ConstantCriteria) {
+            return 0;
+        }
+        if (criteria instanceof FusedCriteria) {
+            return ((FusedCriteria) criteria).cost();
+        }
+        if (criteria instanceof GreaterThanSizeCriteria) {
+            return 1;
+        }
+        if (criteria instanceof FileNameCriteria) {
+            return 2;
+        }
+        if (criteria instanceof ExtensionCriteria) {
+            return 3;
+        }
+        if (criteria instanceof AllOfCriteria || criteria instanceof AnyOfCriteria) {
+            ICritera[] clauses = criteria instanceof AllOfCriteria
+                    ? ((AllOfCriteria) criteria).getClauses()
+                    : ((AnyOfCriteria) criteria).getClauses();
+            int total = 0;
+            for (ICritera clause : clauses) {
+                total += cost(clause);
+            }
+            return total;
+        }
+        return 4;
+    }
+}
@@ -0,0 +1,9 @@
+package Examples;
+
+// Class to represent the default criteria which matches all files
+class DefaultCriteria extends ICritera {
+    @Override
+    public boolean apply(IFileNode file) {
+        return true;
+    }
+}
@@ -0,0 +1,209 @@
+package Examples;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.RandomAccess;
+import java.util.Set;
+
+// Class to represent a directory
+class Directory extends IFileNode {
+    private Set<IFileNode> children; // insertion-ordered, with O(1) lookup and order-preserving removal
+    private IFileNode[] childArray; // children in order, append-only: lists handed out are prefixes of it; dropped on removal
+    private int childCount; // children in childArray
+    private List<IFileNode> childList; // last list handed out by getChildren(), dropped on every change
+    private Map<String, Long> sizeByExtension; // total file size per extension across the subtree, created on first use
+    private int nodeCount = 1; // this directory plus every node below it
+    private FileIndex index; // shared by every directory of an indexed tree, null when not indexed
+
+    public Directory(String name) {
+        super(name, 0, Type.DIRECTORY);
+        this.children = new LinkedHashSet<>();
+    }
+
+    public Directory(String name, List<IFileNode> children) {
+        this(name);
+        for (IFileNode child : children) {
+            addChild(child);
+        }
+    }
+
+    // Method to add a child node to the directory
+    public void addChild(IFileNode child) {
+        if (child.parent != null) {
+            throw new IllegalArgumentException("Child already belongs to " + child.parent.getName() + "!");
+        }
+        for (Directory ancestor = this; ancestor != null; ancestor = ancestor.parent) {
+            if (ancestor == child) {
+                throw new IllegalArgumentException("Cannot add " + child.getName() + " below itself!");
+            }
+        }
+        children.add(child);
+        if (childArray != null) {
+            if (childCount == childArray.length) {
+                childArray = Arrays.copyOf(childArray, Math.max(4, childCount * 2)); // earlier lists keep the old array
+            }
+            childArray[childCount++] = child;
+        }
+        childList = null;
+        child.parent = this;
+        propagate(child, 1);
+        if (index != null) {
+            index.add(child);
+        }
+    }
+
+    // Method to remove a child node from the directory; the other children keep their order
+    public void removeChild(IFileNode child) {
+        if (!children.remove(child)) {
+            throw new IllegalArgumentException("Child not found!");
+        }
+        childArray = null; // rebuilt on the next getChildren(); lists handed out keep the old one
+        childList = null;
+        child.parent = null;
+        propagate(child, -1);
+        if (index != null) {
+            index.remove(child);
+        }
+    }
+
+    public boolean hasChild(IFileNode child) {
+        return children.contains(child);
+    }
+
+    // Method to get the children of the directory, in insertion order; the list is an immutable snapshot.
+    // After an addChild() this is O(1): the new list shares the append-only array with the earlier ones.
+    public List<IFileNode> getChildren() {
+        List<IFileNode> list = childList;
+        if (list == null) {
+            if (childArray == null) {
+                childArray = children.toArray(new IFileNode[0]);
+                childCount = childArray.length;
+            }
+            list = new ChildList(childArray, childCount);
+            childList = list;
+        }
+        return list;
+    }
+
+    // Method to get the number of nodes in this subtree, including this directory
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    // Method to get the total file size per extension of this subtree, maintained incrementally
+    public Map<String, Long> getSizeByExtension() {
+        return sizeByExtension == null ? Collections.emptyMap() : Collections.unmodifiableMap(sizeByExtension);
+    }
+
+    // Method to get the k largest directories below this one, largest first.
+    // A directory is never smaller than its subdirectories, so a best-first walk over the maintained
+    // sizes only expands the directories that make it into the answer.
+    public List<Directory> largestSubtrees(int k) {
+        PriorityQueue<Directory> frontier = new PriorityQueue<>((a, b) -> Integer.compare(b.size, a.size));
+        addSubdirectories(frontier);
+        List<Directory> result = new ArrayList<>();
+        while (result.size() < k && !frontier.isEmpty()) {
+            Directory largest = frontier.poll();
+            result.add(largest);
+            largest.addSubdirectories(frontier);
+        }
+        return result;
+    }
+
+    private void addSubdirectories(PriorityQueue<Directory> frontier) {
+        for (IFileNode child : children) {
+            if (child instanceof Directory) {
+                frontier.add((Directory) child);
+            }
+        }
+    }
+
+    // Method to add (sign 1) or subtract (sign -1) a child's aggregates along the ancestor chain
+    private void propagate(IFileNode child, int sign) {
+        propagateSize(sign * child.getSize());
+        int childNodes = child instanceof Directory ? ((Directory) child).nodeCount : 1;
+        for (Directory directory = this; directory != null; directory = directory.parent) {
+            directory.nodeCount += sign * childNodes;
+        }
+        if (child instanceof File) {
+            String extension = ((File) child).getExtension();
+            if (extension != null) {
+                propagateExtensionSize(extension, sign * (long) child.getSize());
+            }
+        } else if (child instanceof Directory) {
+            for (Map.Entry<String, Long> entry : ((Directory) child).getSizeByExtension().entrySet()) {
+                propagateExtensionSize(entry.getKey(), sign * entry.getValue());
+            }
+        }
+    }
+
+    void propagateSize(int delta) {
+        for (Directory directory = this; directory != null; directory = directory.parent) {
+            directory.size += delta;
+        }
+    }
+
+    void propagateExtensionSize(String extension, long delta) {
+        for (Directory directory = this; directory != null; directory = directory.parent) {
+            if (directory.sizeByExtension == null) {
+                directory.sizeByExtension = new HashMap<>();
+            }
+            directory.sizeByExtension.merge(extension, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+
+    // Method to build secondary indexes over this subtree; kept up to date by addChild/removeChild.
+    // A directory inside an already indexed tree is served by that tree's index and cannot have its own.
+    public FileIndex enableIndex() {
+        if (index != null && !index.isRoot(this)) {
+            throw new IllegalStateException("Directory is already covered by the index of " + index.getOwner().getName() + "!");
+        }
+        if (index == null) {
+            FileIndex newIndex = new FileIndex(this);
+            for (IFileNode child : children) {
+                newIndex.add(child);
+            }
+            index = newIndex;
+        }
+        return index;
+    }
+
+    public FileIndex getIndex() {
+        return index;
+    }
+
+    void setIndex(FileIndex index) {
+        this.index = index;
+    }
+
+    // Read-only prefix of a children array; later appends go past size, so the view never changes
+    private static final class ChildList extends AbstractList<IFileNode> implements RandomAccess {
+        private final IFileNode[] nodes;
+        private final int size;
+
+        ChildList(IFileNode[] nodes, int size) {
+            this.nodes = nodes;
+            this.size = size;
+        }
+
+        @Override
+        public IFileNode get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+            }
+            return nodes[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package Examples;
+
+// Class for email messages
+class EmailMessage extends IMessage {
+    private String email;
+
+    public EmailMessage(String id, String message, String email) {
+        super(id, message);
+        this.email = email;
+    }
+
+    @Override
+    public Channel getChannel() {
+        return Channel.EMAIL;
+    }
+
+    @Override
+    public String toString() {
+        return "Email message [id: " + id + ", message: " + message + "] to " + email;
+    }
+}
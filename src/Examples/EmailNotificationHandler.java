@@ -0,0 +1,15 @@
+package Examples;
+
+// Class for handling email notifications
+class EmailNotificationHandler extends BaseNotificationHandler {
+    @Override
+    public void send(IMessage message) {
+        // Custom logic for sending email (maybe through a 3rd party service)
+        System.out.println("Sent " + message);
+    }
+
+    @Override
+    public Channel getChannel() {
+        return Channel.EMAIL;
+    }
+}
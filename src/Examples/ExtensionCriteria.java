@@ -0,0 +1,19 @@
+package Examples;
+
+// Class to represent a criteria that matches file extension
+class ExtensionCriteria extends ICritera {
+    private String targetExtension;
+
+    public ExtensionCriteria(String targetExtension) {
+        this.targetExtension = targetExtension;
+    }
+
+    public String getTargetExtension() {
+        return targetExtension;
+    }
+
+    @Override
+    public boolean apply(IFileNode file) {
+        return file instanceof File && targetExtension.equals(((File) file).getExtension());
+    }
+}
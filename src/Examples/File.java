@@ -0,0 +1,30 @@
+package Examples;
+
+// Class to represent a file
+class File extends IFileNode {
+    private String extension;
+
+    public File(String name, int size, String extension) {
+        super(name, size, Type.FILE);
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    // Method to change the file size; the delta is pushed to every ancestor directory
+    public void setSize(int newSize) {
+        int oldSize = size;
+        size = newSize;
+        if (parent != null) {
+            parent.propagateSize(newSize - oldSize);
+            if (extension != null) {
+                parent.propagateExtensionSize(extension, (long) newSize - oldSize);
+            }
+            if (parent.getIndex() != null) {
+                parent.getIndex().resize(this, oldSize);
+            }
+        }
+    }
+}
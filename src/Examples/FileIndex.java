@@ -0,0 +1,283 @@
+package Examples;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/*
+Secondary indexes for FindLibrary.
+
+A FileIndex is owned by the root Directory that enabled it and shared by every directory below it,
+so addChild/removeChild/File.setSize anywhere in the tree keep it current. It holds:
+    - a hash index on file name (point lookups in O(1))
+    - a hash index on file extension (point lookups in O(1))
+    - a sorted index on file size (GreaterThanSizeCriteria range queries in O(log n + k))
+Compiled criteria (FusedCriteria, AllOfCriteria, AnyOfCriteria from CriteriaCompiler) are planned the same way.
+
+query() is a small planner over the criteria tree produced by BuildCriteria. It returns null whenever
+the criteria cannot be served from an index (e.g. an OR with DefaultCriteria), and FindLibrary falls
+back to a full scan. Indexed results are sorted into tree order, so they come back in the same order as a scan:
+every node carries its pre-order position, which makes the sort O(k log k). Adding or removing nodes marks the
+positions stale, and the next query renumbers the tree once in O(n), so ordering never costs more than one scan.
+*/
+class FileIndex {
+    private static final long RANGE_ESTIMATE = Long.MAX_VALUE - 1; // range scans are only used when nothing better exists
+
+    private final Directory owner;
+    private final Map<String, Set<File>> byName;
+    private final Map<String, Set<File>> byExtension;
+    private final TreeMap<Integer, Set<File>> bySize;
+    private volatile boolean treeOrderStale = true; // nodes were added or removed since the tree was last numbered
+
+    public FileIndex(Directory owner) {
+        this.owner = owner;
+        this.byName = new HashMap<>();
+        this.byExtension = new HashMap<>();
+        this.bySize = new TreeMap<>();
+        owner.setIndex(this);
+    }
+
+    public boolean isRoot(IFileNode node) {
+        return node == owner;
+    }
+
+    public Directory getOwner() {
+        return owner;
+    }
+
+    // Method to index a node and, for directories, its whole subtree
+    public void add(IFileNode node) {
+        treeOrderStale = true;
+        if (node instanceof File) {
+            File file = (File) node;
+            put(byName, file.getName(), file);
+            put(byExtension, file.getExtension(), file);
+            put(bySize, file.getSize(), file);
+        } else if (node instanceof Directory) {
+            Directory directory = (Directory) node;
+            directory.setIndex(this);
+            for (IFileNode child : directory.getChildren()) {
+                add(child);
+            }
+        }
+    }
+
+    // Method to drop a node and, for directories, its whole subtree from the index
+    public void remove(IFileNode node) {
+        treeOrderStale = true;
+        if (node instanceof File) {
+            File file = (File) node;
+            delete(byName, file.getName(), file);
+            delete(byExtension, file.getExtension(), file);
+            delete(bySize, file.getSize(), file);
+        } else if (node instanceof Directory) {
+            Directory directory = (Directory) node;
+            directory.setIndex(null);
+            for (IFileNode child : directory.getChildren()) {
+                remove(child);
+            }
+        }
+    }
+
+    // Method to move a file whose size changed to its new slot in the size index
+    public void resize(File file, int oldSize) {
+        delete(bySize, oldSize, file);
+        put(bySize, file.getSize(), file);
+    }
+
+    // Method to answer a query from the indexes, or null if a full scan is required
+    public List<IFileNode> query(ICritera criteria) {
+        Collection<File> candidates = candidates(criteria);
+        if (candidates == null) {
+            return null;
+        }
+        List<IFileNode> result = new ArrayList<>();
+        for (File file : candidates) {
+            if (criteria.apply(file)) {
+                result.add(file);
+            }
+        }
+        if (result.size() > 1) {
+            ensureTreeOrder();
+            result.sort((a, b) -> Integer.compare(a.treeOrder, b.treeOrder));
+        }
+        return result;
+    }
+
+    // Synchronized so concurrent queries on an unchanged tree renumber it once and all see the positions
+    private synchronized void ensureTreeOrder() {
+        if (treeOrderStale) {
+            numberTreeOrder(owner, 0);
+            treeOrderStale = false;
+        }
+    }
+
+    // Method to give every node of the subtree its pre-order position, starting at next; returns the next free one
+    private static int numberTreeOrder(IFileNode node, int next) {
+        node.treeOrder = next++;
+        if (node instanceof Directory) {
+            for (IFileNode child : ((Directory) node).getChildren()) {
+                next = numberTreeOrder(child, next);
+            }
+        }
+        return next;
+    }
+
+    // Superset of the files matching criteria, or null if no index can bound the result
+    private Collection<File> candidates(ICritera criteria) {
+        if (criteria instanceof FileNameCriteria) {
+            return byName.getOrDefault(((FileNameCriteria) criteria).getTargetFilename(), Collections.emptySet());
+        }
+        if (criteria instanceof ExtensionCriteria) {
+            return byExtension.getOrDefault(((ExtensionCriteria) criteria).getTargetExtension(), Collections.emptySet());
+        }
+        if (criteria instanceof GreaterThanSizeCriteria) {
+            List<File> files = new ArrayList<>();
+            for (Set<File> bucket : bySize.tailMap(((GreaterThanSizeCriteria) criteria).getTargetSize(), true).values()) {
+                files.addAll(bucket);
+            }
+            return files;
+        }
+        if (criteria instanceof FusedCriteria) {
+            return candidates(mostSelective((FusedCriteria) criteria));
+        }
+        if (criteria instanceof AllOfCriteria) {
+            ICritera best = null;
+            long bestEstimate = Long.MAX_VALUE;
+            for (ICritera clause : ((AllOfCriteria) criteria).getClauses()) {
+                long clauseEstimate = estimate(clause);
+                if (clauseEstimate < bestEstimate) {
+                    best = clause;
+                    bestEstimate = clauseEstimate;
+                }
+            }
+            return best == null ? null : candidates(best);
+        }
+        if (criteria instanceof AnyOfCriteria) {
+            Set<File> union = new LinkedHashSet<>();
+            for (ICritera clause : ((AnyOfCriteria) criteria).getClauses()) {
+                Collection<File> clauseCandidates = candidates(clause);
+                if (clauseCandidates == null) {
+                    return null;
+                }
+                union.addAll(clauseCandidates);
+            }
+            return union;
+        }
+        if (criteria instanceof ANDCriteria) {
+            // Either side bounds an AND; pick the more selective one and let query() filter the rest
+            ANDCriteria and = (ANDCriteria) criteria;
+            long left = estimate(and.getCriteria1());
+            long right = estimate(and.getCriteria2());
+            if (left == Long.MAX_VALUE && right == Long.MAX_VALUE) {
+                return null;
+            }
+            return candidates(left <= right ? and.getCriteria1() : and.getCriteria2());
+        }
+        if (criteria instanceof ORCriteria) {
+            ORCriteria or = (ORCriteria) criteria;
+            Collection<File> left = candidates(or.getCriteria1());
+            if (left == null) {
+                return null;
+            }
+            Collection<File> right = candidates(or.getCriteria2());
+            if (right == null) {
+                return null;
+            }
+            Set<File> union = new LinkedHashSet<>(left);
+            union.addAll(right);
+            return union;
+        }
+        return null;
+    }
+
+    // Estimated candidate count for criteria; Long.MAX_VALUE means no index applies
+    private long estimate(ICritera criteria) {
+        if (criteria instanceof FileNameCriteria) {
+            return byName.getOrDefault(((FileNameCriteria) criteria).getTargetFilename(), Collections.emptySet()).size();
+        }
+        if (criteria instanceof ExtensionCriteria) {
+            return byExtension.getOrDefault(((ExtensionCriteria) criteria).getTargetExtension(), Collections.emptySet()).size();
+        }
+        if (criteria instanceof GreaterThanSizeCriteria) {
+            return RANGE_ESTIMATE;
+        }
+        if (criteria instanceof FusedCriteria) {
+            ICritera leaf = mostSelective((FusedCriteria) criteria);
+            return leaf == null ? Long.MAX_VALUE : estimate(leaf);
+        }
+        if (criteria instanceof AllOfCriteria) {
+            long best = Long.MAX_VALUE;
+            for (ICritera clause : ((AllOfCriteria) criteria).getClauses()) {
+                best = Math.min(best, estimate(clause));
+            }
+            return best;
+        }
+        if (criteria instanceof AnyOfCriteria) {
+            long total = 0;
+            for (ICritera clause : ((AnyOfCriteria) criteria).getClauses()) {
+                long clauseEstimate = estimate(clause);
+                if (clauseEstimate == Long.MAX_VALUE) {
+                    return Long.MAX_VALUE;
+                }
+                total = Math.min(RANGE_ESTIMATE, total + clauseEstimate);
+            }
+            return total;
+        }
+        if (criteria instanceof ANDCriteria) {
+            ANDCriteria and = (ANDCriteria) criteria;
+            return Math.min(estimate(and.getCriteria1()), estimate(and.getCriteria2()));
+        }
+        if (criteria instanceof ORCriteria) {
+            ORCriteria or = (ORCriteria) criteria;
+            long left = estimate(or.getCriteria1());
+            long right = estimate(or.getCriteria2());
+            if (left == Long.MAX_VALUE || right == Long.MAX_VALUE) {
+                return Long.MAX_VALUE;
+            }
+            return Math.min(RANGE_ESTIMATE, left + right);
+        }
+        return Long.MAX_VALUE;
+    }
+
+    // Single-field criteria of a fused check that the indexes can serve best, or null if unconstrained
+    private ICritera mostSelective(FusedCriteria fused) {
+        ICritera best = null;
+        long bestEstimate = Long.MAX_VALUE;
+        if (fused.hasName()) {
+            best = new FileNameCriteria(fused.getName());
+            bestEstimate = estimate(best);
+        }
+        if (fused.hasExtension()) {
+            ICritera extension = new ExtensionCriteria(fused.getExtension());
+            if (estimate(extension) < bestEstimate) {
+                best = extension;
+                bestEstimate = estimate(extension);
+            }
+        }
+        if (best == null && fused.getMinSize() != Integer.MIN_VALUE) {
+            best = new GreaterThanSizeCriteria(fused.getMinSize());
+        }
+        return best;
+    }
+
+    private static <K> void put(Map<K, Set<File>> map, K key, File file) {
+        map.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(file);
+    }
+
+    private static <K> void delete(Map<K, Set<File>> map, K key, File file) {
+        Set<File> bucket = map.get(key);
+        if (bucket != null) {
+            bucket.remove(file);
+            if (bucket.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+}
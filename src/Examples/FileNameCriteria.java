@@ -0,0 +1,19 @@
+package Examples;
+
+// Class to represent a criteria that matches file name
+class FileNameCriteria extends ICritera {
+    private String targetFilename;
+
+    public FileNameCriteria(String targetFilename) {
+        this.targetFilename = targetFilename;
+    }
+
+    public String getTargetFilename() {
+        return targetFilename;
+    }
+
+    @Override
+    public boolean apply(IFileNode file) {
+        return file.getName().equals(targetFilename);
+    }
+}
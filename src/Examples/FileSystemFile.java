@@ -0,0 +1,16 @@
+package Examples;
+
+// File node for a filesystem entry; keeps the real size, which getSize() can only report clamped to int
+class FileSystemFile extends File {
+    private final long longSize;
+
+    public FileSystemFile(String name, long size, String extension) {
+        super(name, (int) Math.min(size, Integer.MAX_VALUE), extension);
+        this.longSize = size;
+    }
+
+    @Override
+    public long getLongSize() {
+        return longSize;
+    }
+}
@@ -0,0 +1,192 @@
+package Examples;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+Real-filesystem backend for FindLibrary.
+
+Runs the same ICritera queries directly against a mounted filesystem, without building a
+Directory/File tree first. Each regular file is exposed to the criteria as a short-lived File node
+built from its BasicFileAttributes, so name, size and type cost one stat per entry.
+    - find() walks subdirectories in parallel on a ForkJoinPool, one task per directory; it reads
+      each entry's attributes itself, as DirectoryStream does not return them
+    - findSequential() uses Files.walkFileTree, which hands over the attributes it already read
+Both return matches in the same order, depth-first in directory listing order. Symbolic links are
+not followed, and directories that cannot be read (or fail part-way) are skipped past, like `find` does.
+*/
+class FileSystemFindLibrary {
+    public List<Path> find(Path root, ICritera criteria) {
+        return find(root, criteria, ForkJoinPool.commonPool());
+    }
+
+    public List<Path> find(Path root, ICritera criteria, ForkJoinPool pool) {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(root, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return new ArrayList<>(); // missing or unreadable root, as findSequential reports it
+        }
+        if (!attrs.isDirectory()) {
+            // A regular-file root is itself the only candidate, like walkFileTree visits it
+            List<Path> result = new ArrayList<>();
+            if (attrs.isRegularFile() && criteria.apply(toNode(root, attrs))) {
+                result.add(root);
+            }
+            return result;
+        }
+        return pool.invoke(new DirectoryTask(root, criteria));
+    }
+
+    public List<Path> findSequential(Path root, ICritera criteria) {
+        List<Path> result = new ArrayList<>();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && criteria.apply(toNode(file, attrs))) {
+                        result.add(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+                    return FileVisitResult.CONTINUE; // listing failed part-way: keep what was visited
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    // Method to adapt a filesystem entry to the node type the criteria understand
+    static File toNode(Path path, BasicFileAttributes attrs) {
+        Path fileName = path.getFileName();
+        String name = fileName == null ? path.toString() : fileName.toString();
+        int dot = name.lastIndexOf('.');
+        String extension = dot > 0 ? name.substring(dot + 1) : "";
+        return new FileSystemFile(name, attrs.size(), extension);
+    }
+
+    // Fork/join task listing one directory; subdirectories become their own tasks, and their matches are
+    // spliced in where the subdirectory was listed so the result order matches walkFileTree's
+    private static class DirectoryTask extends RecursiveTask<List<Path>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+        private final ICritera criteria;
+
+        DirectoryTask(Path directory, ICritera criteria) {
+            this.directory = directory;
+            this.criteria = criteria;
+        }
+
+        @Override
+        protected List<Path> compute() {
+            List<Path> matches = new ArrayList<>();
+            List<DirectoryTask> subtasks = new ArrayList<>();
+            List<Integer> positions = new ArrayList<>(); // size of matches when each subdirectory was listed
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        continue; // entry vanished or is unreadable
+                    }
+                    if (attrs.isDirectory()) {
+                        DirectoryTask subtask = new DirectoryTask(entry, criteria);
+                        subtask.fork();
+                        subtasks.add(subtask);
+                        positions.add(matches.size());
+                    } else if (attrs.isRegularFile() && criteria.apply(toNode(entry, attrs))) {
+                        matches.add(entry);
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                // unreadable, or the listing failed part-way: keep what was listed, as walkFileTree does
+            }
+            if (subtasks.isEmpty()) {
+                return matches;
+            }
+            List<Path> result = new ArrayList<>();
+            int from = 0;
+            for (int i = 0; i < subtasks.size(); i++) {
+                result.addAll(matches.subList(from, positions.get(i)));
+                result.addAll(subtasks.get(i).join());
+                from = positions.get(i);
+            }
+            result.addAll(matches.subList(from, matches.size()));
+            return result;
+        }
+    }
+
+    // Benchmark: java Examples.FileSystemFindLibrary [fileCount] [filesPerDirectory]
+    public static void main(String[] args) throws IOException {
+        int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int filesPerDirectory = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        Path root = Files.createTempDirectory("findlib");
+        System.out.println("Generating " + fileCount + " files under " + root);
+        String[] extensions = {"pdf", "xml", "txt", "log"};
+        Path current = root;
+        for (int i = 0; i < fileCount; i++) {
+            if (i % filesPerDirectory == 0) {
+                current = root.resolve("d" + (i / filesPerDirectory % 64)).resolve("sub" + i);
+                Files.createDirectories(current);
+            }
+            Files.write(current.resolve("file" + i + "." + extensions[i % extensions.length]), new byte[i % 64]);
+        }
+
+        ICritera criteria = new BuildCriteria()
+                .andOp(new ExtensionCriteria("pdf"))
+                .andOp(new GreaterThanSizeCriteria(32))
+                .compile();
+        FileSystemFindLibrary lib = new FileSystemFindLibrary();
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            List<Path> sequential = lib.findSequential(root, criteria);
+            long sequentialMs = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            List<Path> parallel = lib.find(root, criteria);
+            long parallelMs = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.println("round " + round + ": walkFileTree " + sequentialMs + " ms, parallel " + parallelMs
+                    + " ms, matches " + parallel.size() + ", same=" + sequential.equals(parallel));
+        }
+
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
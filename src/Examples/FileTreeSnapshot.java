@@ -0,0 +1,587 @@
+package Examples;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+Persistent, memory-mapped snapshot of a FindLibrary file tree.
+
+Snapshot file layout (big-endian):
+    header   magic, version, nodeCount, nameCount (int each), recordsOffset, namesOffset, epoch (long each)
+    records  nodeCount fixed 24-byte records in pre-order:
+             parent, subtreeEnd, size, type, nameId, extensionId (-1 = none)
+    names    nameCount + 1 int offsets into the UTF-8 blob that follows them
+
+open() maps the file read-only and touches nothing else, so loading is O(1) regardless of tree size;
+node fields are read straight out of the mapping on access and names are decoded on first use.
+
+Changes after the snapshot was written go to an append-only change log next to it (<snapshot>.log)
+and into a small in-memory overlay, which is replayed on open(). compact() folds the overlay into a
+fresh snapshot and truncates the log. A torn record at the end of the log (crash mid-append) is ignored.
+A single mapping is limited to 2 GB, i.e. roughly 80M nodes.
+
+Snapshots are written to a temporary file and renamed into place, followed by an fsync of the directory.
+Every snapshot carries an epoch, which its change log repeats in its header. Log rows refer to one
+particular snapshot, so a log whose epoch does not match (left behind by a crash between a compaction's
+rename and the log reset) is discarded instead of being replayed against the renumbered rows.
+*/
+class FileTreeSnapshot implements Closeable {
+    private static final int MAGIC = 0x46545331; // "FTS1"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 40;
+    private static final int LOG_MAGIC = 0x46544c31; // "FTL1"
+    private static final int LOG_HEADER_BYTES = 12; // magic, epoch
+    private static final int RECORD_BYTES = 24;
+    private static final Type[] TYPES = Type.values();
+
+    private static final byte LOG_ADD = 1;
+    private static final byte LOG_REMOVE = 2;
+    private static final byte LOG_RESIZE = 3;
+
+    private final Path path;
+    private final Path logPath;
+    private FileChannel log;
+    private MappedByteBuffer data;
+    private int nodeCount;
+    private long recordsOffset;
+    private long namesOffset;
+    private long epoch;
+    private String[] nameCache;
+
+    // Overlay of changes made since the snapshot was written
+    private final Map<Integer, Integer> sizeOverrides = new HashMap<>();
+    private final Set<Integer> removed = new HashSet<>();
+    private final List<AddedNode> added = new ArrayList<>();
+    private final Map<Integer, List<Integer>> addedChildren = new HashMap<>();
+
+    private FileTreeSnapshot(Path path) {
+        this.path = path;
+        this.logPath = path.resolveSibling(path.getFileName() + ".log");
+    }
+
+    public static void write(Path path, IFileNode root) throws IOException {
+        write(path, CompactFileTree.of(root));
+    }
+
+    // Method to atomically replace the snapshot at path; any change log next to it is discarded
+    public static void write(Path path, CompactFileTree tree) throws IOException {
+        replace(path, tree, ThreadLocalRandom.current().nextLong());
+        Files.deleteIfExists(path.resolveSibling(path.getFileName() + ".log"));
+    }
+
+    private static void replace(Path path, CompactFileTree tree, long epoch) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        writeFile(temporary, tree, epoch);
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(path);
+    }
+
+    // Method to make a rename in path's directory durable; not every platform can fsync a directory
+    private static void syncDirectory(Path path) {
+        Path directory = path.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // e.g. Windows, where directories cannot be opened as channels
+        }
+    }
+
+    private static void writeFile(Path path, CompactFileTree tree, long epoch) throws IOException {
+        int count = tree.size();
+        NameDictionary names = new NameDictionary();
+        int[] nameIds = new int[count];
+        int[] extensionIds = new int[count];
+        for (int row = 0; row < count; row++) {
+            nameIds[row] = names.intern(tree.getName(row));
+            extensionIds[row] = tree.getExtension(row) == null ? -1 : names.intern(tree.getExtension(row));
+        }
+        byte[][] encoded = new byte[names.size()][];
+        long blobBytes = 0;
+        for (int id = 0; id < encoded.length; id++) {
+            encoded[id] = names.lookup(id).getBytes(StandardCharsets.UTF_8);
+            blobBytes += encoded[id].length;
+        }
+
+        long recordsOffset = HEADER_BYTES;
+        long namesOffset = recordsOffset + (long) count * RECORD_BYTES;
+        long total = namesOffset + 4L * (encoded.length + 1) + blobBytes;
+        if (total > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot of " + count + " nodes exceeds a single 2 GB mapping");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, total);
+            out.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(encoded.length)
+                    .putLong(recordsOffset).putLong(namesOffset).putLong(epoch);
+            for (int row = 0; row < count; row++) {
+                out.putInt(tree.getParent(row))
+                        .putInt(tree.getSubtreeEnd(row))
+                        .putInt(tree.getSize(row))
+                        .putInt(tree.getType(row).ordinal())
+                        .putInt(nameIds[row])
+                        .putInt(extensionIds[row]);
+            }
+            int offset = 0;
+            for (byte[] bytes : encoded) {
+                out.putInt(offset);
+                offset += bytes.length;
+            }
+            out.putInt(offset);
+            for (byte[] bytes : encoded) {
+                out.put(bytes);
+            }
+            out.force();
+        }
+    }
+
+    public static FileTreeSnapshot open(Path path) throws IOException {
+        FileTreeSnapshot snapshot = new FileTreeSnapshot(path);
+        snapshot.map();
+        snapshot.openLog(snapshot.replayLog());
+        return snapshot;
+    }
+
+    // Method to open the change log for appending after its intact prefix; -1 starts a fresh log for this epoch
+    private void openLog(long validLength) throws IOException {
+        log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (validLength < 0) {
+            log.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_BYTES).putInt(LOG_MAGIC).putLong(epoch);
+            appendLog(header);
+            log.force(false);
+        } else if (log.size() > validLength) {
+            log.truncate(validLength); // drop a torn tail so new records stay readable
+        }
+        log.position(log.size());
+    }
+
+    private void map() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (data.capacity() < HEADER_BYTES || data.getInt(0) != MAGIC) {
+            throw new IOException("Not a file tree snapshot: " + path);
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + data.getInt(4) + ": " + path);
+        }
+        nodeCount = data.getInt(8);
+        nameCache = new String[data.getInt(12)];
+        recordsOffset = data.getLong(16);
+        namesOffset = data.getLong(24);
+        epoch = data.getLong(32);
+    }
+
+    // Method to apply the change log to the overlay; returns the length of its intact prefix,
+    // or -1 when there is no log for this snapshot's epoch (missing, torn header, or left by an older snapshot)
+    private long replayLog() throws IOException {
+        if (!Files.exists(logPath)) {
+            return -1;
+        }
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(logPath));
+        if (in.remaining() < LOG_HEADER_BYTES || in.getInt() != LOG_MAGIC || in.getLong() != epoch) {
+            return -1;
+        }
+        int valid = LOG_HEADER_BYTES;
+        while (in.remaining() >= 4) {
+            int length = in.getInt();
+            if (length <= 0 || in.remaining() < length) {
+                break; // torn record from an interrupted append
+            }
+            int end = in.position() + length;
+            byte op = in.get();
+            int row = in.getInt();
+            if (op == LOG_ADD) {
+                Type nodeType = TYPES[in.get()];
+                int nodeSize = in.getInt();
+                String name = readString(in);
+                String extension = readString(in);
+                applyAdd(row, nodeType, name, nodeSize, extension);
+            } else if (op == LOG_REMOVE) {
+                applyRemove(row);
+            } else if (op == LOG_RESIZE) {
+                applyResize(row, in.getInt());
+            } else {
+                throw new IOException("Corrupt change log " + logPath + " at offset " + (end - length - 4));
+            }
+            in.position(end);
+            valid = end;
+        }
+        return valid;
+    }
+
+    // Method to record a new file under parentRow; returns the new node's row
+    public int addFile(int parentRow, String name, int fileSize, String extension) throws IOException {
+        checkDirectory(parentRow);
+        appendLog(addRecord(parentRow, Type.FILE, name, fileSize, extension));
+        return applyAdd(parentRow, Type.FILE, name, fileSize, extension);
+    }
+
+    // Method to record a new, empty directory under parentRow; returns the new node's row
+    public int addDirectory(int parentRow, String name) throws IOException {
+        checkDirectory(parentRow);
+        appendLog(addRecord(parentRow, Type.DIRECTORY, name, 0, null));
+        return applyAdd(parentRow, Type.DIRECTORY, name, 0, null);
+    }
+
+    // Method to record the removal of a node and its whole subtree
+    public void remove(int row) throws IOException {
+        checkLive(row);
+        if (row == 0) {
+            throw new IllegalArgumentException("The root cannot be removed!");
+        }
+        appendLog(ByteBuffer.allocate(9).putInt(5).put(LOG_REMOVE).putInt(row));
+        applyRemove(row);
+    }
+
+    // Method to record a new size for a file
+    public void resize(int row, int newSize) throws IOException {
+        checkLive(row);
+        if (getType(row) != Type.FILE) {
+            throw new IllegalArgumentException("Only files can be resized!");
+        }
+        appendLog(ByteBuffer.allocate(13).putInt(9).put(LOG_RESIZE).putInt(row).putInt(newSize));
+        applyResize(row, newSize);
+    }
+
+    // Method to make every logged change durable
+    public void sync() throws IOException {
+        log.force(false);
+    }
+
+    private static ByteBuffer addRecord(int parentRow, Type nodeType, String name, int nodeSize, String extension) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] extensionBytes = extension == null ? null : extension.getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 4 + 1 + 4 + 4 + nameBytes.length + 4 + (extensionBytes == null ? 0 : extensionBytes.length);
+        ByteBuffer record = ByteBuffer.allocate(4 + length)
+                .putInt(length).put(LOG_ADD).putInt(parentRow).put((byte) nodeType.ordinal()).putInt(nodeSize)
+                .putInt(nameBytes.length).put(nameBytes);
+        if (extensionBytes == null) {
+            record.putInt(-1);
+        } else {
+            record.putInt(extensionBytes.length).put(extensionBytes);
+        }
+        return record;
+    }
+
+    private void appendLog(ByteBuffer record) throws IOException {
+        record.flip();
+        while (record.hasRemaining()) {
+            log.write(record);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int applyAdd(int parentRow, Type nodeType, String name, int nodeSize, String extension) {
+        int row = nodeCount + added.size();
+        added.add(new AddedNode(parentRow, nodeType, name, nodeSize, extension));
+        addedChildren.computeIfAbsent(parentRow, k -> new ArrayList<>()).add(row);
+        propagateSize(parentRow, nodeSize);
+        return row;
+    }
+
+    private void applyRemove(int row) {
+        removed.add(row);
+        propagateSize(getParent(row), -getSize(row));
+    }
+
+    private void applyResize(int row, int newSize) {
+        int delta = newSize - getSize(row);
+        setSize(row, newSize);
+        propagateSize(getParent(row), delta);
+    }
+
+    private void propagateSize(int row, int delta) {
+        for (int ancestor = row; ancestor >= 0; ancestor = getParent(ancestor)) {
+            setSize(ancestor, getSize(ancestor) + delta);
+        }
+    }
+
+    private void setSize(int row, int newSize) {
+        if (row < nodeCount) {
+            sizeOverrides.put(row, newSize);
+        } else {
+            added.get(row - nodeCount).size = newSize;
+        }
+    }
+
+    private void checkLive(int row) {
+        if (row < 0 || row >= size() || isRemoved(row)) {
+            throw new IllegalArgumentException("Node " + row + " not found!");
+        }
+    }
+
+    private void checkDirectory(int row) {
+        checkLive(row);
+        if (getType(row) != Type.DIRECTORY) {
+            throw new IllegalArgumentException("Node " + row + " is not a directory!");
+        }
+    }
+
+    // Number of rows, including removed ones and nodes added since the snapshot was written
+    public int size() {
+        return nodeCount + added.size();
+    }
+
+    public int getParent(int row) {
+        return row < nodeCount ? data.getInt(record(row)) : added.get(row - nodeCount).parent;
+    }
+
+    public int getSize(int row) {
+        if (row >= nodeCount) {
+            return added.get(row - nodeCount).size;
+        }
+        Integer override = sizeOverrides.isEmpty() ? null : sizeOverrides.get(row);
+        return override != null ? override : data.getInt(record(row) + 8);
+    }
+
+    public Type getType(int row) {
+        return row < nodeCount ? TYPES[data.getInt(record(row) + 12)] : added.get(row - nodeCount).type;
+    }
+
+    public String getName(int row) {
+        return row < nodeCount ? name(data.getInt(record(row) + 16)) : added.get(row - nodeCount).name;
+    }
+
+    public String getExtension(int row) {
+        if (row >= nodeCount) {
+            return added.get(row - nodeCount).extension;
+        }
+        int id = data.getInt(record(row) + 20);
+        return id < 0 ? null : name(id);
+    }
+
+    public boolean isRemoved(int row) {
+        if (removed.isEmpty()) {
+            return false;
+        }
+        for (int ancestor = row; ancestor >= 0; ancestor = getParent(ancestor)) {
+            if (removed.contains(ancestor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int record(int row) {
+        return (int) (recordsOffset + (long) row * RECORD_BYTES);
+    }
+
+    // Method to decode a dictionary entry on first use
+    private String name(int id) {
+        String value = nameCache[id];
+        if (value == null) {
+            int table = (int) namesOffset;
+            int blob = table + 4 * (nameCache.length + 1);
+            int start = data.getInt(table + 4 * id);
+            int end = data.getInt(table + 4 * (id + 1));
+            byte[] bytes = new byte[end - start];
+            data.get(blob + start, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            nameCache[id] = value;
+        }
+        return value;
+    }
+
+    // Method to find matching files; snapshot rows come first in pre-order, then files added since
+    public List<IFileNode> find(ICritera criteria) {
+        List<IFileNode> result = new ArrayList<>();
+        SnapshotFileNode cursor = new SnapshotFileNode(this, 0);
+        for (int row = 0; row < nodeCount; row++) {
+            if (!removed.isEmpty() && removed.contains(row)) {
+                row = data.getInt(record(row) + 4) - 1; // skip the removed subtree
+                continue;
+            }
+            if (data.getInt(record(row) + 12) == Type.FILE.ordinal()) {
+                cursor.moveTo(row);
+                if (criteria.apply(cursor)) {
+                    result.add(new SnapshotFileNode(this, row));
+                }
+            }
+        }
+        for (int row = nodeCount; row < size(); row++) {
+            if (getType(row) == Type.FILE && !isRemoved(row)) {
+                cursor.moveTo(row);
+                if (criteria.apply(cursor)) {
+                    result.add(new SnapshotFileNode(this, row));
+                }
+            }
+        }
+        return result;
+    }
+
+    // Method to fold the change log into a fresh snapshot and start an empty log
+    public void compact() throws IOException {
+        CompactFileTree tree = new CompactFileTree();
+        copy(0, tree);
+        tree.seal();
+
+        // The new epoch orphans the current log: once the rename is durable, a crash before the log is
+        // reset leaves a log that open() recognises as stale
+        replace(path, tree, epoch + 1);
+        log.close();
+
+        sizeOverrides.clear();
+        removed.clear();
+        added.clear();
+        addedChildren.clear();
+        map();
+        openLog(-1);
+    }
+
+    private void copy(int row, CompactFileTree tree) {
+        if (getType(row) != Type.DIRECTORY) {
+            tree.addFile(getName(row), getSize(row), getExtension(row));
+            return;
+        }
+        tree.beginDirectory(getName(row));
+        if (row < nodeCount) {
+            int end = data.getInt(record(row) + 4);
+            for (int child = row + 1; child < end; child = data.getInt(record(child) + 4)) {
+                if (!removed.contains(child)) {
+                    copy(child, tree);
+                }
+            }
+        }
+        for (int child : addedChildren.getOrDefault(row, Collections.emptyList())) {
+            if (!removed.contains(child)) {
+                copy(child, tree);
+            }
+        }
+        tree.endDirectory();
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+
+    // Class to hold a node added through the change log since the snapshot was written
+    private static class AddedNode {
+        final int parent;
+        final Type type;
+        final String name;
+        final String extension;
+        int size;
+
+        AddedNode(int parent, Type type, String name, int size, String extension) {
+            this.parent = parent;
+            this.type = type;
+            this.name = name;
+            this.size = size;
+            this.extension = extension;
+        }
+    }
+
+    // Benchmark: java Examples.FileTreeSnapshot [fileCount]
+    public static void main(String[] args) throws IOException {
+        int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        CompactFileTree tree = new CompactFileTree();
+        tree.beginDirectory("/");
+        for (int i = 0; i < fileCount; i++) {
+            if (i % 1000 == 0) {
+                if (i > 0) {
+                    tree.endDirectory();
+                }
+                tree.beginDirectory("dir" + i / 1000);
+            }
+            tree.addFile("file" + i % 5000, i % 4096, i % 2 == 0 ? "pdf" : "xml");
+        }
+        tree.endDirectory();
+        tree.endDirectory();
+        tree.seal();
+
+        Path path = Files.createTempFile("filetree", ".snapshot");
+        long start = System.nanoTime();
+        write(path, tree);
+        System.out.println("write " + (System.nanoTime() - start) / 1_000_000 + " ms, " + Files.size(path) + " bytes");
+
+        start = System.nanoTime();
+        try (FileTreeSnapshot snapshot = open(path)) {
+            System.out.println("open " + (System.nanoTime() - start) / 1_000 + " us, " + snapshot.size() + " nodes");
+
+            ICritera criteria = new BuildCriteria().andOp(new FileNameCriteria("file42")).compile();
+            start = System.nanoTime();
+            System.out.println("query " + snapshot.find(criteria).size() + " matches in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+            int newFile = snapshot.addFile(0, "file42", 10, "txt");
+            snapshot.resize(newFile, 20);
+            snapshot.sync();
+        }
+        try (FileTreeSnapshot reopened = open(path)) {
+            System.out.println("after replay: " + reopened.find(new FileNameCriteria("file42")).size()
+                    + " matches, root size " + reopened.getSize(0));
+            reopened.compact();
+            System.out.println("after compact: " + reopened.size() + " nodes");
+        }
+        Files.deleteIfExists(path.resolveSibling(path.getFileName() + ".log"));
+        Files.delete(path);
+    }
+}
+
+// Class to represent a snapshot row as a File, so existing criteria can evaluate it
+class SnapshotFileNode extends File {
+    private final FileTreeSnapshot snapshot;
+    private int row;
+
+    public SnapshotFileNode(FileTreeSnapshot snapshot, int row) {
+        super(null, 0, null);
+        this.snapshot = snapshot;
+        this.row = row;
+    }
+
+    void moveTo(int row) {
+        this.row = row;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    @Override
+    public String getName() {
+        return snapshot.getName(row);
+    }
+
+    @Override
+    public int getSize() {
+        return snapshot.getSize(row);
+    }
+
+    @Override
+    public String getExtension() {
+        return snapshot.getExtension(row);
+    }
+
+    @Override
+    public String toString() {
+        return snapshot.getType(row) + "(" + getName() + ")";
+    }
+}
@@ -1,201 +1,218 @@
 package Examples;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.EnumSet;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-// Enum to represent the type of file node
-enum Type {
-    FILE, DIRECTORY, SYMLINK;
-}
-
-// Base class for file nodes
-class IFileNode {
-    protected String name;
-    protected int size;
-    protected Type fileType;
-
-    public IFileNode(String name, int size, Type fileType) {
-        this.name = name;
-        this.size = size;
-        this.fileType = fileType;
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    public int getSize() {
-        return size;
-    }
-
-    @Override
-    public String toString() {
-        return fileType + "(" + name + ")";
-    }
-}
-
-// Class to represent a file
-class File extends IFileNode {
-    private String extension;
-
-    public File(String name, int size, String extension) {
-        super(name, size, Type.FILE);
-        this.extension = extension;
-    }
-}
+// Class to find files in the file system based on criteria
+class FindLibrary {
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 1024;
 
-// Class to represent a directory
-class Directory extends IFileNode {
-    private List<IFileNode> children;
+    // Subtrees with at most this many nodes are searched sequentially by a single task, and directories
+    // with more children than this are split into slices
+    private final int parallelThreshold;
 
-    public Directory(String name) {
-        super(name, 0, Type.DIRECTORY);
-        this.children = new ArrayList<>();
+    public FindLibrary() {
+        this(DEFAULT_PARALLEL_THRESHOLD);
     }
 
-    public Directory(String name, List<IFileNode> children) {
-        super(name, 0, Type.DIRECTORY);
-        this.children = new ArrayList<>(children);
-        for (IFileNode child : children) {
-            this.size += child.getSize();
+    public FindLibrary(int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be positive");
         }
+        this.parallelThreshold = parallelThreshold;
     }
 
-    // Method to add a child node to the directory
-    public void addChild(IFileNode child) {
-        children.add(child);
-        size += child.getSize();
+    public List<IFileNode> findAPI(IFileNode root, ICritera criteria) {
+        List<IFileNode> indexed = indexedLookup(root, criteria);
+        if (indexed != null) {
+            return indexed;
+        }
+        List<IFileNode> result = new ArrayList<>();
+        findHelper(root, criteria, result);
+        return result;
     }
 
-    // Method to remove a child node from the directory
-    public void removeChild(IFileNode child) {
-        if (!children.contains(child)) {
-            throw new IllegalArgumentException("Child not found!");
+    private void findHelper(IFileNode root, ICritera criteria, List<IFileNode> result) {
+        if (root.fileType == Type.FILE) {
+            if (criteria.apply(root)) {
+                result.add(root);
+            }
+            return;
+        }
+        for (IFileNode child : ((Directory) root).getChildren()) {
+            findHelper(child, criteria, result);
         }
-        children.remove(child);
-        size -= child.getSize();
     }
 
-    // Method to get the children of the directory
-    public List<IFileNode> getChildren() {
-        return children;
+    // Same query over a columnar CompactFileTree; results come back in the same pre-order as the object tree
+    public List<IFileNode> findAPI(CompactFileTree tree, ICritera criteria) {
+        if (tree.size() == 0) {
+            return new ArrayList<>();
+        }
+        return tree.find(0, criteria);
     }
-}
-
-// Abstract class to represent a criteria
-abstract class ICritera {
-    public abstract boolean apply(IFileNode file);
-}
 
-// Class to represent a criteria that matches file name
-class FileNameCriteria extends ICritera {
-    private String targetFilename;
-
-    public FileNameCriteria(String targetFilename) {
-        this.targetFilename = targetFilename;
+    // Same query over a memory-mapped FileTreeSnapshot, including changes recorded in its change log
+    public List<IFileNode> findAPI(FileTreeSnapshot snapshot, ICritera criteria) {
+        return snapshot.find(criteria);
     }
 
-    @Override
-    public boolean apply(IFileNode file) {
-        return file.getName().equals(targetFilename);
+    // Lazily yields matches in the same order as findAPI; memory is bounded by tree depth, not match count
+    public Iterator<IFileNode> findIterator(IFileNode root, ICritera criteria) {
+        return new FindIterator(root, criteria);
     }
-}
-
-// Class to represent a criteria that matches file size greater than a given size
-class GreaterThanSizeCriteria extends ICritera {
-    private int targetSize;
 
-    public GreaterThanSizeCriteria(int targetSize) {
-        this.targetSize = targetSize;
+    // Pull-based stream over findIterator, so limit()/findFirst() stop the walk early
+    public Stream<IFileNode> findStream(IFileNode root, ICritera criteria) {
+        Spliterator<IFileNode> spliterator = Spliterators.spliteratorUnknownSize(
+                findIterator(root, criteria), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false);
     }
 
-    @Override
-    public boolean apply(IFileNode file) {
-        return file.getSize() >= targetSize;
-    }
-}
+    // Depth-first walk driven by the caller; each next() advances only as far as the next match
+    private static class FindIterator implements Iterator<IFileNode> {
+        private final Deque<Iterator<IFileNode>> stack = new ArrayDeque<>();
+        private final ICritera criteria;
+        private IFileNode nextMatch;
 
-// Class to represent the default criteria which matches all files
-class DefaultCriteria extends ICritera {
-    @Override
-    public boolean apply(IFileNode file) {
-        return true;
-    }
-}
+        FindIterator(IFileNode root, ICritera criteria) {
+            this.criteria = criteria;
+            this.stack.push(List.of(root).iterator());
+        }
 
-// Class to represent AND criteria
-class ANDCriteria extends ICritera {
-    private ICritera criteria1;
-    private ICritera criteria2;
+        @Override
+        public boolean hasNext() {
+            while (nextMatch == null && !stack.isEmpty()) {
+                Iterator<IFileNode> level = stack.peek();
+                if (!level.hasNext()) {
+                    stack.pop();
+                    continue;
+                }
+                IFileNode node = level.next();
+                if (node.fileType == Type.FILE) {
+                    if (criteria.apply(node)) {
+                        nextMatch = node;
+                    }
+                } else {
+                    stack.push(((Directory) node).getChildren().iterator());
+                }
+            }
+            return nextMatch != null;
+        }
 
-    public ANDCriteria(ICritera criteria1, ICritera criteria2) {
-        this.criteria1 = criteria1;
-        this.criteria2 = criteria2;
+        @Override
+        public IFileNode next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            IFileNode match = nextMatch;
+            nextMatch = null;
+            return match;
+        }
     }
 
-    @Override
-    public boolean apply(IFileNode file) {
-        return criteria1.apply(file) && criteria2.apply(file);
+    // Answers the query from the tree's secondary indexes when root owns them and the criteria allow it, else null
+    private List<IFileNode> indexedLookup(IFileNode root, ICritera criteria) {
+        if (!(root instanceof Directory)) {
+            return null;
+        }
+        FileIndex index = ((Directory) root).getIndex();
+        if (index == null || !index.isRoot(root)) {
+            return null;
+        }
+        return index.query(criteria);
     }
-}
-
-// Class to represent OR criteria
-class ORCriteria extends ICritera {
-    private ICritera criteria1;
-    private ICritera criteria2;
 
-    public ORCriteria(ICritera criteria1, ICritera criteria2) {
-        this.criteria1 = criteria1;
-        this.criteria2 = criteria2;
+    // Same result (and order) as findAPI, but subtrees are searched concurrently; criteria must be thread-safe
+    public List<IFileNode> findAPIParallel(IFileNode root, ICritera criteria) {
+        return findAPIParallel(root, criteria, ForkJoinPool.commonPool());
     }
 
-    @Override
-    public boolean apply(IFileNode file) {
-        return criteria1.apply(file) || criteria2.apply(file);
+    public List<IFileNode> findAPIParallel(IFileNode root, ICritera criteria, ForkJoinPool pool) {
+        if (root.fileType == Type.FILE) {
+            return findAPI(root, criteria);
+        }
+        List<IFileNode> indexed = indexedLookup(root, criteria);
+        if (indexed != null) {
+            return indexed;
+        }
+        Directory directory = (Directory) root;
+        if (directory.getNodeCount() <= parallelThreshold) {
+            List<IFileNode> result = new ArrayList<>();
+            findHelper(directory, criteria, result);
+            return result;
+        }
+        return pool.invoke(new FindTask(directory, 0, directory.getChildren().size(), criteria));
     }
-}
 
-// Class to build criteria using builder pattern
-class BuildCriteria {
-    private ICritera buildCriteria;
+    // Fork/join task searching the children [from, to) of a directory; each task owns its result list
+    private class FindTask extends RecursiveTask<List<IFileNode>> {
+        private static final long serialVersionUID = 1L;
 
-    public BuildCriteria() {
-        this.buildCriteria = new DefaultCriteria();
-    }
+        private final Directory directory;
+        private final int from;
+        private final int to;
+        private final ICritera criteria;
 
-    public BuildCriteria andOp(ICritera criteria) {
-        this.buildCriteria = new ANDCriteria(this.buildCriteria, criteria);
-        return this;
-    }
-
-    public BuildCriteria orOp(ICritera criteria) {
-        this.buildCriteria = new ORCriteria(this.buildCriteria, criteria);
-        return this;
-    }
+        FindTask(Directory directory, int from, int to, ICritera criteria) {
+            this.directory = directory;
+            this.from = from;
+            this.to = to;
+            this.criteria = criteria;
+        }
 
-    public ICritera build() {
-        return this.buildCriteria;
-    }
-}
+        @Override
+        protected List<IFileNode> compute() {
+            if (to - from > parallelThreshold) {
+                int mid = (from + to) >>> 1;
+                FindTask left = new FindTask(directory, from, mid, criteria);
+                FindTask right = new FindTask(directory, mid, to, criteria);
+                left.fork();
+                List<IFileNode> rightResult = right.compute();
+                List<IFileNode> result = left.join();
+                result.addAll(rightResult);
+                return result;
+            }
 
-// Class to find files in the file system based on criteria
-class FindLibrary {
-    public List<IFileNode> findAPI(IFileNode root, ICritera criteria) {
-        List<IFileNode> result = new ArrayList<>();
-        findHelper(root, criteria, result);
-        return result;
-    }
+            List<IFileNode> children = directory.getChildren();
+            List<IFileNode> result = new ArrayList<>();
+            // Enough work is already queued for idle workers to steal, so finish this slice inline
+            if (getSurplusQueuedTaskCount() > 3) {
+                for (int i = from; i < to; i++) {
+                    findHelper(children.get(i), criteria, result);
+                }
+                return result;
+            }
 
-    private void findHelper(IFileNode root, ICritera criteria, List<IFileNode> result) {
-        if (root.fileType == Type.FILE) {
-            if (criteria.apply(root)) {
-                result.add(root);
+            // Only subtrees above the threshold are worth a task of their own; the rest are walked inline
+            FindTask[] subtasks = new FindTask[to - from];
+            for (int i = from; i < to; i++) {
+                IFileNode child = children.get(i);
+                if (child instanceof Directory && ((Directory) child).getNodeCount() > parallelThreshold) {
+                    Directory subDirectory = (Directory) child;
+                    subtasks[i - from] = new FindTask(subDirectory, 0, subDirectory.getChildren().size(), criteria);
+                    subtasks[i - from].fork();
+                }
             }
-            return;
-        }
-        for (IFileNode child : ((Directory) root).getChildren()) {
-            findHelper(child, criteria, result);
+            // Join in child order so the merged result matches the sequential walk
+            for (int i = from; i < to; i++) {
+                if (subtasks[i - from] != null) {
+                    result.addAll(subtasks[i - from].join());
+                } else {
+                    findHelper(children.get(i), criteria, result);
+                }
+            }
+            return result;
         }
     }
 
@@ -219,6 +236,30 @@ class FindLibrary {
         for (IFileNode node : result) {
             System.out.println(node);
         }
+
+        System.out.println(lib.findAPIParallel(root, criteria).equals(result));
+
+        root.enableIndex();
+        ICritera pdfCriteria = new BuildCriteria()
+                .andOp(new ExtensionCriteria("pdf"))
+                .andOp(new GreaterThanSizeCriteria(50))
+                .build();
+        System.out.println(lib.findAPI(root, pdfCriteria));
+
+        ICritera compiled = new BuildCriteria()
+                .andOp(new ExtensionCriteria("pdf"))
+                .andOp(new GreaterThanSizeCriteria(50))
+                .compile();
+        System.out.println(lib.findAPI(root, compiled));
+
+        lib.findStream(root, new DefaultCriteria())
+                .limit(1)
+                .forEach(System.out::println);
+
+        CompactFileTree compact = CompactFileTree.of(root);
+        System.out.println(lib.findAPI(compact, compiled));
+
+        file2.setSize(200);
+        System.out.println(root.getSize() + " " + root.getSizeByExtension() + " " + root.largestSubtrees(1));
     }
 }
-
@@ -0,0 +1,82 @@
+package Examples;
+
+import java.util.Objects;
+
+// Class to represent the conjunction of name, extension and minimum size checks, evaluated inline.
+// Each check behaves exactly like the leaf it came from, including a null target name or extension.
+final class FusedCriteria extends ICritera {
+    private final boolean hasName;
+    private final String name;
+    private final boolean hasExtension;
+    private final String extension;
+    private final int minSize;       // Integer.MIN_VALUE when unconstrained
+
+    private FusedCriteria(boolean hasName, String name, boolean hasExtension, String extension, int minSize) {
+        this.hasName = hasName;
+        this.name = name;
+        this.hasExtension = hasExtension;
+        this.extension = extension;
+        this.minSize = minSize;
+    }
+
+    static FusedCriteria of(ICritera leaf) {
+        if (leaf instanceof FileNameCriteria) {
+            return new FusedCriteria(true, ((FileNameCriteria) leaf).getTargetFilename(), false, null, Integer.MIN_VALUE);
+        }
+        if (leaf instanceof ExtensionCriteria) {
+            return new FusedCriteria(false, null, true, ((ExtensionCriteria) leaf).getTargetExtension(), Integer.MIN_VALUE);
+        }
+        return new FusedCriteria(false, null, false, null, ((GreaterThanSizeCriteria) leaf).getTargetSize());
+    }
+
+    // Method to merge two fused checks; returns null when they can never both hold
+    FusedCriteria and(FusedCriteria other) {
+        if (hasName && other.hasName && !Objects.equals(name, other.name)) {
+            return null;
+        }
+        if (hasExtension && other.hasExtension && !Objects.equals(extension, other.extension)) {
+            return null;
+        }
+        return new FusedCriteria(
+                hasName || other.hasName, hasName ? name : other.name,
+                hasExtension || other.hasExtension, hasExtension ? extension : other.extension,
+                Math.max(minSize, other.minSize));
+    }
+
+    public boolean hasName() {
+        return hasName;
+    }
+
+    // Only meaningful when hasName()
+    public String getName() {
+        return name;
+    }
+
+    public boolean hasExtension() {
+        return hasExtension;
+    }
+
+    // Only meaningful when hasExtension()
+    public String getExtension() {
+        return extension;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    int cost() {
+        return (minSize != Integer.MIN_VALUE ? 1 : 0) + (hasName ? 2 : 0) + (hasExtension ? 3 : 0);
+    }
+
+    @Override
+    public boolean apply(IFileNode file) {
+        if (file.getLongSize() < minSize) {
+            return false;
+        }
+        if (hasName && !file.getName().equals(name)) {
+            return false;
+        }
+        return !hasExtension || (file instanceof File && extension.equals(((File) file).getExtension()));
+    }
+}
@@ -0,0 +1,19 @@
+package Examples;
+
+// Class to represent a criteria that matches file size greater than a given size
+class GreaterThanSizeCriteria extends ICritera {
+    private int targetSize;
+
+    public GreaterThanSizeCriteria(int targetSize) {
+        this.targetSize = targetSize;
+    }
+
+    public int getTargetSize() {
+        return targetSize;
+    }
+
+    @Override
+    public boolean apply(IFileNode file) {
+        return file.getLongSize() >= targetSize;
+    }
+}
@@ -0,0 +1,6 @@
+package Examples;
+
+// Abstract class to represent a criteria
+abstract class ICritera {
+    public abstract boolean apply(IFileNode file);
+}
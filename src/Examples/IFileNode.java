@@ -0,0 +1,38 @@
+package Examples;
+
+// Base class for file nodes
+class IFileNode {
+    protected String name;
+    protected int size;
+    protected Type fileType;
+    protected Directory parent;
+    int treeOrder; // pre-order position in an indexed tree, assigned lazily by FileIndex to sort matches in tree order
+
+    public IFileNode(String name, int size, Type fileType) {
+        this.name = name;
+        this.size = size;
+        this.fileType = fileType;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    // Method to get the size without clamping to int; nodes backed by real files can exceed 2 GiB
+    public long getLongSize() {
+        return getSize();
+    }
+
+    public Directory getParent() {
+        return parent;
+    }
+
+    @Override
+    public String toString() {
+        return fileType + "(" + name + ")";
+    }
+}
@@ -0,0 +1,17 @@
+package Examples;
+
+// Abstract base class for messages
+abstract class IMessage {
+    protected String id;
+    protected String message;
+
+    public IMessage(String id, String message) {
+        this.id = id;
+        this.message = message;
+    }
+
+    public abstract Channel getChannel();
+
+    @Override
+    public abstract String toString();
+}
@@ -0,0 +1,175 @@
+package Examples;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/*
+Primitive-specialized doubly-linked list of ints.
+
+LinkedList allocates a ListNode per element (plus two sentinels) and iterates over ListNode objects.
+IntLinkedList keeps values and links in parallel int[] arrays instead:
+    values[slot], next[slot], prev[slot]
+Slot 0 is the sentinel of a circular list, so add/remove need no null checks. Freed slots are chained
+through next[] into a free list and reused by later adds, so a steady add/remove workload allocates
+nothing once the arrays have grown. add() returns the slot as a handle for O(1) remove/get.
+*/
+class IntLinkedList implements Iterable<Integer> {
+    private static final int SENTINEL = 0;
+    private static final int FREE = -1; // prev[] marker for slots on the free list
+
+    private int[] values;
+    private int[] next;
+    private int[] prev;
+    private int freeHead = FREE;
+    private int used = 1; // slots handed out so far, including the sentinel
+    private int size;
+    private int modCount;
+
+    public IntLinkedList() {
+        this(16);
+    }
+
+    public IntLinkedList(int initialCapacity) {
+        int capacity = Math.max(2, initialCapacity + 1);
+        values = new int[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        next[SENTINEL] = SENTINEL;
+        prev[SENTINEL] = SENTINEL;
+    }
+
+    // Method to append a value; returns a handle for get/remove
+    public int add(int val) {
+        int slot = allocate();
+        int last = prev[SENTINEL];
+        values[slot] = val;
+        prev[slot] = last;
+        next[slot] = SENTINEL;
+        next[last] = slot;
+        prev[SENTINEL] = slot;
+        size++;
+        modCount++;
+        return slot;
+    }
+
+    public int get(int handle) {
+        checkHandle(handle);
+        return values[handle];
+    }
+
+    // Method to unlink the element behind a handle in O(1); the handle must not be used afterwards
+    public int remove(int handle) {
+        checkHandle(handle);
+        next[prev[handle]] = next[handle];
+        prev[next[handle]] = prev[handle];
+        prev[handle] = FREE;
+        next[handle] = freeHead;
+        freeHead = handle;
+        size--;
+        modCount++;
+        return values[handle];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int allocate() {
+        if (freeHead != FREE) {
+            int slot = freeHead;
+            freeHead = next[slot];
+            return slot;
+        }
+        if (used == values.length) {
+            int capacity = values.length * 2;
+            values = Arrays.copyOf(values, capacity);
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+        }
+        return used++;
+    }
+
+    private void checkHandle(int handle) {
+        if (handle <= SENTINEL || handle >= used || prev[handle] == FREE) {
+            throw new IllegalArgumentException("Invalid handle " + handle);
+        }
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new IntLinkedListIterator();
+    }
+
+    private class IntLinkedListIterator implements PrimitiveIterator.OfInt {
+        private int current = next[SENTINEL];
+        private int lastReturned = SENTINEL;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return current != SENTINEL;
+        }
+
+        @Override
+        public int nextInt() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = current;
+            current = next[current];
+            return values[lastReturned];
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == SENTINEL) {
+                throw new IllegalStateException();
+            }
+            IntLinkedList.this.remove(lastReturned);
+            lastReturned = SENTINEL;
+            expectedModCount = modCount;
+        }
+    }
+
+    // Benchmark against LinkedList: java Examples.IntLinkedList [elements] [rounds]
+    public static void main(String[] args) {
+        int elements = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            LinkedList boxed = new LinkedList();
+            for (int i = 0; i < elements; i++) {
+                boxed.add(i);
+            }
+            long boxedSum = 0;
+            for (ListNode node : boxed) {
+                boxedSum += node.val;
+            }
+            long boxedMs = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            IntLinkedList primitive = new IntLinkedList();
+            for (int i = 0; i < elements; i++) {
+                primitive.add(i);
+            }
+            long primitiveSum = 0;
+            for (PrimitiveIterator.OfInt it = primitive.iterator(); it.hasNext(); ) {
+                primitiveSum += it.nextInt();
+            }
+            long primitiveMs = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.println("round " + round + ": LinkedList " + boxedMs + " ms, IntLinkedList " + primitiveMs
+                    + " ms (add + iterate " + elements + ", sums equal=" + (boxedSum == primitiveSum) + ")");
+        }
+    }
+}
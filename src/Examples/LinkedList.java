@@ -0,0 +1,190 @@
+package Examples;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+class LinkedList implements Iterable<ListNode> {
+    private ListNode head;
+    private ListNode tail;
+    private int size;
+
+    public LinkedList() {
+        buildList();
+    }
+
+    private void buildList() {
+        head = new ListNode(0);
+        tail = new ListNode(0);
+        head.next = tail;
+        tail.prev = head;
+    }
+
+    public void add(int val) {
+        ListNode newNode = new ListNode(val);
+        newNode.prev = tail.prev;
+        newNode.next = tail;
+        tail.prev.next = newNode;
+        tail.prev = newNode;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<ListNode> iterator() {
+        return new LinkedListIterator();
+    }
+
+    @Override
+    public Spliterator<ListNode> spliterator() {
+        return new LinkedListSpliterator(head.next, size);
+    }
+
+    public Stream<ListNode> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<ListNode> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /*
+     * Spliterator over `remaining` nodes starting at `current`. Like java.util.LinkedList's, it splits by copying
+     * a batch of nodes into an array and handing out an array spliterator, so a split costs one pass over the
+     * batch instead of a walk to the midpoint; the batch grows by BATCH_UNIT on each split.
+     */
+    private static class LinkedListSpliterator implements Spliterator<ListNode> {
+        private static final int BATCH_UNIT = 1 << 10;
+        private static final int MAX_BATCH = 1 << 25;
+
+        private ListNode current;
+        private int remaining;
+        private int batch;
+
+        LinkedListSpliterator(ListNode current, int remaining) {
+            this.current = current;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super ListNode> action) {
+            if (remaining == 0) {
+                return false;
+            }
+            action.accept(current);
+            current = current.next;
+            remaining--;
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super ListNode> action) {
+            ListNode node = current;
+            for (int i = remaining; i > 0; i--) {
+                action.accept(node);
+                node = node.next;
+            }
+            current = node;
+            remaining = 0;
+        }
+
+        @Override
+        public Spliterator<ListNode> trySplit() {
+            if (remaining <= 1) {
+                return null;
+            }
+            int n = Math.min(Math.min(batch + BATCH_UNIT, MAX_BATCH), remaining);
+            ListNode[] nodes = new ListNode[n];
+            ListNode node = current;
+            for (int i = 0; i < n; i++) {
+                nodes[i] = node;
+                node = node.next;
+            }
+            current = node;
+            remaining -= n;
+            batch = n;
+            return Spliterators.spliterator(nodes, 0, n, characteristics());
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+    }
+
+    private class LinkedListIterator implements Iterator<ListNode> {
+        private ListNode current = head.next;
+
+        @Override
+        public boolean hasNext() {
+            return current != null && current.next != null;
+        }
+
+        @Override
+        public ListNode next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ListNode returnNode = current;
+            current = current.next;
+            return returnNode;
+        }
+    }
+
+    public static void main(String[] args) {
+        LinkedList list = new LinkedList();
+        Random random = new Random();
+
+        for (int i = 0; i < 10; i++) {
+            list.add(random.nextInt(10));
+        }
+
+        for (ListNode node : list) {
+            System.out.println(node);
+        }
+
+        System.out.println("sum: " + list.parallelStream().mapToLong(node -> node.val).sum());
+    }
+}
+
+// Benchmark of sequential vs parallel stream aggregation: java Examples.LinkedListStreamBenchmark [sizes...]
+// (100M elements needs a heap of several GB for the ListNode objects)
+class LinkedListStreamBenchmark {
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[]{1_000_000, 10_000_000};
+        for (int size : sizes) {
+            LinkedList list = new LinkedList();
+            for (int i = 0; i < size; i++) {
+                list.add(i % 1000);
+            }
+            for (int round = 0; round < 5; round++) {
+                long start = System.nanoTime();
+                long sequential = list.stream().filter(node -> node.val % 3 == 0).mapToLong(node -> node.val * 2L).sum();
+                long sequentialMs = (System.nanoTime() - start) / 1_000_000;
+
+                start = System.nanoTime();
+                long parallel = list.parallelStream().filter(node -> node.val % 3 == 0).mapToLong(node -> node.val * 2L).sum();
+                long parallelMs = (System.nanoTime() - start) / 1_000_000;
+
+                System.out.println(size + " elements, round " + round + ": sequential " + sequentialMs
+                        + " ms, parallel " + parallelMs + " ms, equal=" + (sequential == parallel));
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package Examples;
+
+class ListNode {
+    int val;
+    ListNode prev;
+    ListNode next;
+
+    public ListNode(int val) {
+        this.val = val;
+    }
+
+    @Override
+    public String toString() {
+        return "ListNode: " + val;
+    }
+}
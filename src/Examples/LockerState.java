@@ -0,0 +1,8 @@
+package Examples;
+
+enum LockerState {
+    CLOSED,  // booked and a package is inside
+    OPEN,    // booked and ready to add package
+    AVAILABLE,  // free to be booked
+    BOOKED;  // package not placed yet
+}
@@ -0,0 +1,453 @@
+package Examples;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+Durable store for locker state: a group-committed write-ahead log plus periodic compact snapshots.
+
+Layout of the store directory:
+    snapshot       latest compact snapshot: every locker's state and current package id, plus the
+                   number of the first WAL segment that is not already folded into it
+    wal-<n>.log    append-only WAL segments of state transitions, one framed record each:
+                   length, state, locker id, package id (-1 length = none)
+
+append() encodes a record into an in-memory buffer and returns its sequence number without any I/O.
+A single flusher thread writes everything buffered so far and fsyncs it once, so concurrent callers
+blocked in awaitDurable() share one fsync per batch (group commit).
+snapshot() rolls to a new WAL segment, writes the snapshot beside it and deletes the old segments once
+the rename is durable. open() loads the snapshot and replays the newer segments; a torn record at the end
+of a segment (crash mid-write) is ignored. After a write or fsync fails the store fails closed: every later
+append(), awaitDurable() and snapshot() throws, since nothing appended after the failure could be made durable.
+*/
+class LockerStateStore implements AutoCloseable {
+    private static final int SNAPSHOT_MAGIC = 0x4c4b5331; // "LKS1"
+    private static final LockerState[] STATES = LockerState.values();
+
+    private final Path directory;
+    private final Map<String, LockerState> states;
+    private final Map<String, String> packages;
+    private final ReentrantLock lock;
+    private final Condition workAvailable;
+    private final Condition flushed;
+    private final Thread flusher;
+    private final AtomicLong flushCount;
+
+    private ByteBuffer pending;
+    private ByteBuffer spare;
+    private FileChannel wal;
+    private long segment;
+    private long appendedSeq;
+    private long durableSeq;
+    private IOException failure;
+    private boolean closed;
+
+    private LockerStateStore(Path directory) {
+        this.directory = directory;
+        this.states = new HashMap<>();
+        this.packages = new HashMap<>();
+        this.lock = new ReentrantLock();
+        this.workAvailable = lock.newCondition();
+        this.flushed = lock.newCondition();
+        this.pending = ByteBuffer.allocate(1 << 16);
+        this.spare = ByteBuffer.allocate(1 << 16);
+        this.flushCount = new AtomicLong();
+        this.flusher = new Thread(this::flushLoop, "locker-wal-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    // Method to recover the store from its directory (creating it if needed) and start logging
+    public static LockerStateStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        LockerStateStore store = new LockerStateStore(directory);
+        long replayFrom = store.loadSnapshot();
+        long lastSegment = replayFrom - 1;
+        for (long walSegment : store.segments()) {
+            if (walSegment >= replayFrom) {
+                store.replay(store.segmentPath(walSegment));
+            }
+            lastSegment = Math.max(lastSegment, walSegment);
+        }
+        store.segment = lastSegment + 1; // never append after a possibly torn tail
+        store.wal = store.openSegment(store.segment);
+        store.flusher.start();
+        return store;
+    }
+
+    // Method to log a transition; returns its sequence number for awaitDurable. No I/O happens here.
+    public long append(String lockerId, LockerState state, String packageId) {
+        byte[] id = lockerId.getBytes(StandardCharsets.UTF_8);
+        byte[] pkg = packageId == null ? null : packageId.getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 2 + id.length + 2 + (pkg == null ? 0 : pkg.length);
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Locker state store is closed");
+            }
+            checkNotFailed();
+            if (pending.remaining() < 4 + length) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + 4 + length));
+                pending.flip();
+                larger.put(pending);
+                pending = larger;
+            }
+            pending.putInt(length).put((byte) state.ordinal()).putShort((short) id.length).put(id);
+            if (pkg == null) {
+                pending.putShort((short) -1);
+            } else {
+                pending.putShort((short) pkg.length).put(pkg);
+            }
+            apply(lockerId, state, packageId);
+            workAvailable.signal();
+            return ++appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Method to block until the record with the given sequence number (and all before it) is fsynced
+    public void awaitDurable(long seq) {
+        lock.lock();
+        try {
+            while (durableSeq < seq && failure == null) {
+                flushed.awaitUninterruptibly();
+            }
+            if (durableSeq < seq) {
+                checkNotFailed();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Method to log a transition and wait until it is durable
+    public void record(String lockerId, LockerState state, String packageId) {
+        awaitDurable(append(lockerId, state, packageId));
+    }
+
+    public LockerState getState(String lockerId) {
+        lock.lock();
+        try {
+            return states.get(lockerId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getPackageId(String lockerId) {
+        lock.lock();
+        try {
+            return packages.get(lockerId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return states.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Number of fsyncs so far; appends / flushCount is the achieved group-commit batch size
+    public long flushCount() {
+        return flushCount.get();
+    }
+
+    // Method to write a compact snapshot and drop the WAL segments it covers
+    public void snapshot() throws IOException {
+        Map<String, LockerState> stateCopy;
+        Map<String, String> packageCopy;
+        FileChannel oldWal;
+        long snapshotSeq;
+        long replayFrom;
+        lock.lock();
+        try {
+            checkNotFailed();
+            stateCopy = new HashMap<>(states);
+            packageCopy = new HashMap<>(packages);
+            snapshotSeq = appendedSeq;
+            oldWal = wal;
+            replayFrom = segment + 1;
+            wal = openSegment(replayFrom); // appends from now on land in the new segment
+            segment = replayFrom;
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(snapshotSeq);
+        oldWal.close();
+
+        Path temporary = directory.resolve("snapshot.tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 20))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(replayFrom);
+            out.writeInt(stateCopy.size());
+            for (Map.Entry<String, LockerState> entry : stateCopy.entrySet()) {
+                String packageId = packageCopy.get(entry.getKey());
+                out.writeUTF(entry.getKey());
+                out.writeByte(entry.getValue().ordinal());
+                out.writeBoolean(packageId != null);
+                if (packageId != null) {
+                    out.writeUTF(packageId);
+                }
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve("snapshot"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(); // the old segments may only go once the new snapshot is sure to survive a crash
+        for (long walSegment : segments()) {
+            if (walSegment < replayFrom) {
+                Files.deleteIfExists(segmentPath(walSegment));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        wal.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            ByteBuffer batch;
+            FileChannel channel;
+            long batchSeq;
+            lock.lock();
+            try {
+                while (pending.position() == 0 && !closed) {
+                    workAvailable.awaitUninterruptibly();
+                }
+                if (pending.position() == 0) {
+                    return; // closed and fully flushed
+                }
+                batch = pending;
+                pending = spare;
+                spare = batch;
+                channel = wal;
+                batchSeq = appendedSeq;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                channel.force(false);
+                flushCount.incrementAndGet();
+            } catch (IOException e) {
+                error = e;
+            }
+            batch.clear();
+
+            lock.lock();
+            try {
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durableSeq = batchSeq;
+                }
+                flushed.signalAll();
+                if (error != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Must hold lock
+    private void checkNotFailed() {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed; the store no longer accepts records", failure);
+        }
+    }
+
+    private void apply(String lockerId, LockerState state, String packageId) {
+        states.put(lockerId, state);
+        if (packageId == null) {
+            packages.remove(lockerId);
+        } else {
+            packages.put(lockerId, packageId);
+        }
+    }
+
+    // Method to load the snapshot, if any; returns the first WAL segment that still has to be replayed
+    private long loadSnapshot() throws IOException {
+        Path snapshot = directory.resolve("snapshot");
+        if (!Files.exists(snapshot)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot), 1 << 20))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a locker state snapshot: " + snapshot);
+            }
+            long replayFrom = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String lockerId = in.readUTF();
+                LockerState state = STATES[in.readByte()];
+                String packageId = in.readBoolean() ? in.readUTF() : null;
+                apply(lockerId, state, packageId);
+            }
+            return replayFrom;
+        }
+    }
+
+    private void replay(Path walSegment) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(walSegment));
+        while (in.remaining() >= 4) {
+            int length = in.getInt();
+            if (length <= 0 || in.remaining() < length) {
+                break; // torn record from a crash mid-write
+            }
+            LockerState state = STATES[in.get()];
+            String lockerId = readString(in);
+            String packageId = readString(in);
+            apply(lockerId, state, packageId);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        short length = in.getShort();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private List<Long> segments() throws IOException {
+        List<Long> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "wal-*.log")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                result.add(Long.parseLong(name.substring(4, name.length() - 4)));
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private Path segmentPath(long walSegment) {
+        return directory.resolve("wal-" + walSegment + ".log");
+    }
+
+    // Method to create a segment; the directory is synced so an fsynced record cannot lose its file in a crash
+    private FileChannel openSegment(long walSegment) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(walSegment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        syncDirectory();
+        return channel;
+    }
+
+    // Method to make creates and renames in the store directory durable; not every platform can fsync a directory
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // e.g. Windows, where directories cannot be opened as channels
+        }
+    }
+
+    // Benchmark: java Examples.LockerStateStore [lockers] [threads] [transitionsPerThread]
+    public static void main(String[] args) throws Exception {
+        int lockers = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int transitionsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+        Path directory = Files.createTempDirectory("locker-state");
+
+        try (LockerStateStore store = open(directory)) {
+            long start = System.nanoTime();
+            long last = 0;
+            for (int i = 0; i < lockers; i++) {
+                last = store.append("locker-" + i, LockerState.AVAILABLE, null);
+            }
+            store.awaitDurable(last);
+            System.out.println("logged " + lockers + " lockers in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+            start = System.nanoTime();
+            store.snapshot();
+            System.out.println("snapshot in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+            // Booking threads each wait for durability; the flusher batches them into shared fsyncs
+            long flushesBefore = store.flushCount();
+            CountDownLatch done = new CountDownLatch(threads);
+            start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                new Thread(() -> {
+                    for (int i = 0; i < transitionsPerThread; i++) {
+                        String lockerId = "locker-" + ((thread * transitionsPerThread + i) % lockers);
+                        store.record(lockerId, LockerState.BOOKED, "package-" + i);
+                    }
+                    done.countDown();
+                }).start();
+            }
+            done.await();
+            long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            long transitions = (long) threads * transitionsPerThread;
+            long flushes = store.flushCount() - flushesBefore;
+            System.out.println(transitions + " durable transitions from " + threads + " threads in " + elapsedMs + " ms ("
+                    + transitions * 1000 / elapsedMs + "/s, " + transitions / Math.max(1, flushes) + " per fsync)");
+        }
+
+        long start = System.nanoTime();
+        try (LockerStateStore recovered = open(directory)) {
+            System.out.println("recovered " + recovered.size() + " lockers in " + (System.nanoTime() - start) / 1_000_000
+                    + " ms, locker-0 is " + recovered.getState("locker-0") + " with " + recovered.getPackageId("locker-0"));
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
@@ -11,19 +11,26 @@ package Examples;
 //        # 8. customer can choose which location to pickup from / drop at
 //        # 9. locker should have states like closed / open
 
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 enum LockerSize {
     SMALL, MEDIUM, LARGE;
 }
 
-enum LockerState {
-    CLOSED,  // booked and a package is inside
-    OPEN,    // booked and ready to add package
-    AVAILABLE,  // free to be booked
-    BOOKED;  // package not placed yet
-}
-
 class Item {
     private final String itemId;
     private final int quantity;
@@ -88,12 +95,27 @@ class LockerPackage extends Package {
         this.lockerId = lockerId;
     }
 
+    public String getLockerId() {
+        return lockerId;
+    }
+
+    // Epoch millis after which the code stops working and the package is due for a refund
+    public long getPickupDeadline() {
+        return packageDeliveryTime + TimeUnit.DAYS.toMillis(codeValidDays);
+    }
+
     private boolean isValidCode(String code) {
         return this.code.equals(code);
     }
 
+    // Method to build the message that gives the customer the pickup code
+    public Notification pickupNotification(String customerId, NotificationChannel channel) {
+        return new Notification(customerId, order.getOrderId(), lockerId, code, NotificationType.DELIVERY, channel);
+    }
+
+    // Method to check a pickup code; time and packageDeliveryTime are epoch millis
     public boolean verifyCode(String code, long time) {
-        return isValidCode(code) && (time - packageDeliveryTime <= codeValidDays);
+        return isValidCode(code) && time <= getPickupDeadline();
     }
 }
 
@@ -102,6 +124,7 @@ class Locker {
     private final LockerSize lockerSize;
     private final String locationId;
     private LockerState lockerState;
+    private String packageId; // package currently placed in the locker, if any
 
     public Locker(String lockerId, LockerSize lockerSize, String locationId, LockerState lockerState) {
         this.lockerId = lockerId;
@@ -114,11 +137,63 @@ class Locker {
         this(lockerId, lockerSize, locationId, LockerState.AVAILABLE);
     }
 
+    public String getLockerId() {
+        return lockerId;
+    }
+
+    public LockerSize getLockerSize() {
+        return lockerSize;
+    }
+
+    public String getLocationId() {
+        return locationId;
+    }
+
+    public LockerState getLockerState() {
+        return lockerState;
+    }
+
+    public String getPackageId() {
+        return packageId;
+    }
+
+    // Method to move the locker to a new state, enforcing AVAILABLE -> BOOKED -> OPEN -> CLOSED -> OPEN -> AVAILABLE
+    public void transitionTo(LockerState newState) {
+        if (!canTransition(this.lockerState, newState)) {
+            throw new IllegalStateException("Locker " + lockerId + " cannot go from " + this.lockerState + " to " + newState);
+        }
+        this.lockerState = newState;
+        if (newState == LockerState.AVAILABLE) {
+            this.packageId = null;
+        }
+    }
+
+    // Method to put back the state read from durable storage on recovery, without transition checks
+    void restore(LockerState lockerState, String packageId) {
+        this.lockerState = lockerState;
+        this.packageId = packageId;
+    }
+
+    private static boolean canTransition(LockerState from, LockerState to) {
+        switch (from) {
+            case AVAILABLE:
+                return to == LockerState.BOOKED;
+            case BOOKED:
+                return to == LockerState.OPEN || to == LockerState.AVAILABLE; // open to load, or cancel
+            case OPEN:
+                return to == LockerState.CLOSED || to == LockerState.AVAILABLE; // package placed, or taken out
+            case CLOSED:
+                return to == LockerState.OPEN;
+            default:
+                return false;
+        }
+    }
+
     public void addPackage(LockerPackage lockerPackage) {
         if (this.lockerState != LockerState.OPEN) {
             throw new IllegalStateException("Locker state is " + this.lockerState + " and thus package cannot be placed");
         }
-        // Logic to add the package
+        this.packageId = lockerPackage.getPackageId();
     }
 }
 
@@ -129,6 +204,8 @@ class LockerLocation {
     private final double latitude;
     private final String openTime;
     private final String closeTime;
+    private final LocalTime opensAt;
+    private final LocalTime closesAt;
 
     public LockerLocation(String name, List<Locker> lockers, double longitude, double latitude, String openTime, String closeTime) {
         this.name = name;
@@ -137,21 +214,135 @@ class LockerLocation {
         this.latitude = latitude;
         this.openTime = openTime;
         this.closeTime = closeTime;
+        this.opensAt = LocalTime.parse(openTime);
+        this.closesAt = LocalTime.parse(closeTime);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Locker> getLockers() {
+        return lockers;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public double getLatitude() {
+        return latitude;
     }
+
+    // Method to check opening hours; equal open and close times mean open around the clock
+    public boolean isOpenAt(LocalTime time) {
+        if (opensAt.equals(closesAt)) {
+            return true;
+        }
+        if (opensAt.isBefore(closesAt)) {
+            return !time.isBefore(opensAt) && time.isBefore(closesAt);
+        }
+        return !time.isBefore(opensAt) || time.isBefore(closesAt); // open past midnight
+    }
+}
+
+// Interface to ask whether a location currently has a free locker that fits a package
+interface LockerAvailability {
+    boolean hasFreeLocker(String locationId, LockerSize packageSize);
 }
 
-class LockerService {
-    private static LockerService instance;
-    private Map<String, String> locations;
+// Class to allocate lockers from per-location, per-size free pools in O(1)
+class LockerAllocator implements LockerAvailability {
+    private static final LockerSize[] SIZES = LockerSize.values();
+
+    private final Map<String, EnumMap<LockerSize, ArrayDeque<Locker>>> freePools;
+
+    public LockerAllocator() {
+        freePools = new HashMap<>();
+    }
+
+    // Method to register a location (keyed by name, which its lockers use as locationId); AVAILABLE lockers go into the free pools
+    public void addLocation(LockerLocation location) {
+        EnumMap<LockerSize, ArrayDeque<Locker>> pools = new EnumMap<>(LockerSize.class);
+        for (LockerSize size : SIZES) {
+            pools.put(size, new ArrayDeque<>());
+        }
+        for (Locker locker : location.getLockers()) {
+            if (locker.getLockerState() == LockerState.AVAILABLE) {
+                pools.get(locker.getLockerSize()).push(locker);
+            }
+        }
+        freePools.put(location.getName(), pools);
+    }
+
+    // Method to book the smallest free locker that fits the package, falling back to larger sizes
+    public Locker allocate(String locationId, LockerSize packageSize) {
+        EnumMap<LockerSize, ArrayDeque<Locker>> pools = poolsFor(locationId);
+        for (int i = packageSize.ordinal(); i < SIZES.length; i++) {
+            Locker locker = pools.get(SIZES[i]).poll();
+            if (locker != null) {
+                locker.transitionTo(LockerState.BOOKED);
+                return locker;
+            }
+        }
+        return null; // no locker big enough is free at this location
+    }
+
+    // Method to return a booked or opened locker to its free pool
+    public void release(Locker locker) {
+        locker.transitionTo(LockerState.AVAILABLE);
+        poolsFor(locker.getLocationId()).get(locker.getLockerSize()).push(locker);
+    }
+
+    public int freeCount(String locationId, LockerSize size) {
+        return poolsFor(locationId).get(size).size();
+    }
+
+    @Override
+    public boolean hasFreeLocker(String locationId, LockerSize packageSize) {
+        EnumMap<LockerSize, ArrayDeque<Locker>> pools = poolsFor(locationId);
+        for (int i = packageSize.ordinal(); i < SIZES.length; i++) {
+            if (!pools.get(SIZES[i]).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private EnumMap<LockerSize, ArrayDeque<Locker>> poolsFor(String locationId) {
+        EnumMap<LockerSize, ArrayDeque<Locker>> pools = freePools.get(locationId);
+        if (pools == null) {
+            throw new IllegalArgumentException("Unknown locker location " + locationId);
+        }
+        return pools;
+    }
+}
+
+class LockerService implements LockerAvailability {
+    private static volatile LockerService instance;
+    private volatile Map<String, String> locations;
+    private final ConcurrentHashMap<String, LocationBooking> bookings;
+    private final ConcurrentHashMap<String, Locker> lockersById;
+    private volatile LockerStateStore stateStore; // optional; when set every transition is made durable
+    private volatile LockerNotificationDispatcher notificationDispatcher; // optional; sends the pickup codes
+    private volatile PickupDeadlineWheel pickupDeadlines; // optional; tracks when delivered packages expire
+    private final ConcurrentHashMap<String, PickupTimer> pickupTimers; // by package id, while the deadline is tracked
 
     private LockerService() {
-        locations = new HashMap<>();
+        locations = new ConcurrentHashMap<>();
         locations.put("loc1", "austin");
+        bookings = new ConcurrentHashMap<>();
+        lockersById = new ConcurrentHashMap<>();
+        pickupTimers = new ConcurrentHashMap<>();
     }
 
-    public static synchronized LockerService getInstance() {
+    public static LockerService getInstance() {
         if (instance == null) {
-            instance = new LockerService();
+            synchronized (LockerService.class) {
+                if (instance == null) {
+                    instance = new LockerService();
+                }
+            }
         }
         return instance;
     }
@@ -160,31 +351,888 @@ class LockerService {
         return locations;
     }
 
+    // Readers see either the old or the new map, never a half-built one
     public void setLocations(Map<String, String> locations) {
-        this.locations = locations;
+        this.locations = new ConcurrentHashMap<>(locations);
+    }
+
+    // Method to make a location's lockers bookable; each location is guarded by its own lock
+    public void addLocation(LockerLocation location) {
+        LockerAllocator allocator = new LockerAllocator();
+        allocator.addLocation(location);
+        bookings.put(location.getName(), new LocationBooking(location, allocator));
+        for (Locker locker : location.getLockers()) {
+            lockersById.put(locker.getLockerId(), locker);
+        }
+    }
+
+    public Locker getLocker(String lockerId) {
+        Locker locker = lockersById.get(lockerId);
+        if (locker == null) {
+            throw new IllegalArgumentException("Unknown locker " + lockerId);
+        }
+        return locker;
+    }
+
+    public void setStateStore(LockerStateStore stateStore) {
+        this.stateStore = stateStore;
+    }
+
+    /*
+     * Method to restart from a store after a crash: every registered locker the store knows gets its durable state
+     * and package back, each location's free pools are rebuilt from the restored states, and the store is attached
+     * so transitions from now on are logged to it. Call it after addLocation() and before taking traffic.
+     * Returns the number of lockers restored.
+     */
+    public int recover(LockerStateStore store) {
+        int restored = 0;
+        for (LocationBooking booking : bookings.values()) {
+            booking.lock.lock();
+            try {
+                for (Locker locker : booking.location.getLockers()) {
+                    LockerState state = store.getState(locker.getLockerId());
+                    if (state != null) {
+                        locker.restore(state, store.getPackageId(locker.getLockerId()));
+                        restored++;
+                    }
+                }
+                booking.allocator.addLocation(booking.location);
+            } finally {
+                booking.lock.unlock();
+            }
+        }
+        this.stateStore = store;
+        return restored;
+    }
+
+    public void setNotificationDispatcher(LockerNotificationDispatcher notificationDispatcher) {
+        this.notificationDispatcher = notificationDispatcher;
+    }
+
+    // Packages delivered from now on get their pickup deadline scheduled on this wheel
+    public void setPickupDeadlines(PickupDeadlineWheel pickupDeadlines) {
+        this.pickupDeadlines = pickupDeadlines;
+    }
+
+    // Method to book a locker for a package; only one caller can ever win a given locker
+    public Locker book(String locationId, LockerSize packageSize) {
+        LocationBooking booking = bookingFor(locationId);
+        Locker locker;
+        long seq;
+        booking.lock.lock();
+        try {
+            locker = booking.allocator.allocate(locationId, packageSize);
+            seq = log(locker);
+        } finally {
+            booking.lock.unlock();
+        }
+        awaitDurable(seq);
+        return locker;
+    }
+
+    // Method to move a booked locker through OPEN/CLOSED under its location's lock. BOOKED and AVAILABLE change the
+    // free pools, so they only come from book() and release()
+    public void transition(Locker locker, LockerState newState) {
+        if (newState != LockerState.OPEN && newState != LockerState.CLOSED) {
+            throw new IllegalArgumentException("Use book() or release() to move a locker to " + newState);
+        }
+        LocationBooking booking = bookingFor(locker.getLocationId());
+        long seq;
+        booking.lock.lock();
+        try {
+            locker.transitionTo(newState);
+            seq = log(locker);
+        } finally {
+            booking.lock.unlock();
+        }
+        awaitDurable(seq);
+    }
+
+    public void release(Locker locker) {
+        LocationBooking booking = bookingFor(locker.getLocationId());
+        long seq;
+        booking.lock.lock();
+        try {
+            booking.allocator.release(locker);
+            seq = log(locker);
+        } finally {
+            booking.lock.unlock();
+        }
+        awaitDurable(seq);
+    }
+
+    /*
+     * Method for the delivery agent to put a package into its booked locker (BOOKED -> OPEN -> CLOSED) and queue
+     * the pickup code for the customer. Returns false if no dispatcher is set or the channel's queue is full; the
+     * package is placed either way and the caller can resend the code later.
+     */
+    public boolean deliver(LockerPackage lockerPackage, String customerId, NotificationChannel channel) {
+        Locker locker = getLocker(lockerPackage.getLockerId());
+        LocationBooking booking = bookingFor(locker.getLocationId());
+        long seq;
+        booking.lock.lock();
+        try {
+            locker.transitionTo(LockerState.OPEN);
+            log(locker);
+            locker.addPackage(lockerPackage);
+            locker.transitionTo(LockerState.CLOSED);
+            seq = log(locker);
+        } finally {
+            booking.lock.unlock();
+        }
+        awaitDurable(seq);
+        PickupDeadlineWheel wheel = pickupDeadlines;
+        if (wheel != null) {
+            pickupTimers.put(lockerPackage.getPackageId(), wheel.schedule(lockerPackage));
+        }
+        LockerNotificationDispatcher dispatcher = notificationDispatcher;
+        return dispatcher != null && dispatcher.submit(lockerPackage.pickupNotification(customerId, channel));
+    }
+
+    /*
+     * Method for the customer to collect a package with its pickup code; time is epoch millis. Opens the locker,
+     * frees it and cancels the package's pickup deadline. Returns false if the code is wrong or expired, or the
+     * package is no longer in its locker.
+     */
+    public boolean pickup(LockerPackage lockerPackage, String code, long time) {
+        Locker locker = getLocker(lockerPackage.getLockerId());
+        LocationBooking booking = bookingFor(locker.getLocationId());
+        long seq;
+        booking.lock.lock();
+        try {
+            if (!holds(locker, lockerPackage) || !lockerPackage.verifyCode(code, time)) {
+                return false;
+            }
+            if (locker.getLockerState() == LockerState.CLOSED) {
+                locker.transitionTo(LockerState.OPEN);
+                log(locker);
+            }
+            booking.allocator.release(locker);
+            seq = log(locker);
+        } finally {
+            booking.lock.unlock();
+        }
+        awaitDurable(seq);
+        PickupTimer timer = pickupTimers.remove(lockerPackage.getPackageId());
+        PickupDeadlineWheel wheel = pickupDeadlines;
+        if (timer != null && wheel != null) {
+            wheel.cancel(timer);
+        }
+        return true;
+    }
+
+    // Method to take an expired package's locker back: opens it if the package is still inside, then frees it.
+    // Check and release happen under one location lock; false if the locker no longer holds this package (it was
+    // picked up, and the locker may since have been booked for another one).
+    public boolean reclaim(LockerPackage lockerPackage) {
+        Locker locker = getLocker(lockerPackage.getLockerId());
+        LocationBooking booking = bookingFor(locker.getLocationId());
+        long seq;
+        booking.lock.lock();
+        try {
+            pickupTimers.remove(lockerPackage.getPackageId());
+            if (!holds(locker, lockerPackage)) {
+                return false;
+            }
+            if (locker.getLockerState() == LockerState.CLOSED) {
+                locker.transitionTo(LockerState.OPEN); // staff take the package out
+                log(locker);
+            }
+            booking.allocator.release(locker);
+            seq = log(locker);
+        } finally {
+            booking.lock.unlock();
+        }
+        awaitDurable(seq);
+        return true;
+    }
+
+    private static boolean holds(Locker locker, LockerPackage lockerPackage) {
+        return lockerPackage.getPackageId().equals(locker.getPackageId());
+    }
+
+    // Appending under the location lock keeps the log in transition order; the fsync wait happens outside it
+    private long log(Locker locker) {
+        LockerStateStore store = stateStore;
+        return store == null || locker == null ? 0 : store.append(locker.getLockerId(), locker.getLockerState(), locker.getPackageId());
+    }
+
+    private void awaitDurable(long seq) {
+        LockerStateStore store = stateStore;
+        if (store != null && seq > 0) {
+            store.awaitDurable(seq);
+        }
+    }
+
+    @Override
+    public boolean hasFreeLocker(String locationId, LockerSize packageSize) {
+        LocationBooking booking = bookingFor(locationId);
+        booking.lock.lock();
+        try {
+            return booking.allocator.hasFreeLocker(locationId, packageSize);
+        } finally {
+            booking.lock.unlock();
+        }
+    }
+
+    private LocationBooking bookingFor(String locationId) {
+        LocationBooking booking = bookings.get(locationId);
+        if (booking == null) {
+            throw new IllegalArgumentException("Unknown locker location " + locationId);
+        }
+        return booking;
+    }
+
+    // Booking state of one location; contention is limited to agents at the same location
+    private static class LocationBooking {
+        private final ReentrantLock lock;
+        private final LockerLocation location;
+        private final LockerAllocator allocator;
+
+        LocationBooking(LockerLocation location, LockerAllocator allocator) {
+            this.lock = new ReentrantLock();
+            this.location = location;
+            this.allocator = allocator;
+        }
+    }
+}
+
+/*
+Spatial index over locker locations: a uniform latitude/longitude grid (cellDegrees per side) with one
+bucket per non-empty cell.
+    - nearest(): scans rings of cells outwards from the customer's cell and stops as soon as no
+      unvisited ring can hold anything closer than the k-th best match found so far; once the rings
+      would cover more cells than there are buckets, it visits the remaining buckets directly instead
+    - withinRadius(): scans only the cells overlapping the radius's bounding box
+Both skip locations that are closed at the requested time or have no free locker for the package.
+Distances are great-circle (haversine) kilometres; the antimeridian is not wrapped.
+*/
+class LockerLocationIndex {
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private final double cellDegrees;
+    private final LockerAvailability availability;
+    private final Map<Long, List<LockerLocation>> cells;
+    private int minRow = Integer.MAX_VALUE;
+    private int maxRow = Integer.MIN_VALUE;
+    private int minColumn = Integer.MAX_VALUE;
+    private int maxColumn = Integer.MIN_VALUE;
+
+    public LockerLocationIndex(LockerAvailability availability) {
+        this(0.05, availability);
+    }
+
+    public LockerLocationIndex(double cellDegrees, LockerAvailability availability) {
+        this.cellDegrees = cellDegrees;
+        this.availability = availability;
+        this.cells = new HashMap<>();
+    }
+
+    public void add(LockerLocation location) {
+        int row = row(location.getLatitude());
+        int column = column(location.getLongitude());
+        cells.computeIfAbsent(key(row, column), k -> new ArrayList<>()).add(location);
+        minRow = Math.min(minRow, row);
+        maxRow = Math.max(maxRow, row);
+        minColumn = Math.min(minColumn, column);
+        maxColumn = Math.max(maxColumn, column);
+    }
+
+    // Method to find the k closest open locations with a free locker for the package, closest first
+    public List<LockerLocation> nearest(double latitude, double longitude, int k, LocalTime at, LockerSize packageSize) {
+        if (k <= 0 || cells.isEmpty()) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Pair<Double, LockerLocation>> best =
+                new PriorityQueue<>((a, b) -> Double.compare(b.getKey(), a.getKey())); // farthest on top
+        int centerRow = row(latitude);
+        int centerColumn = column(longitude);
+        int maxRing = (int) Math.max(Math.max((long) centerRow - minRow, (long) maxRow - centerRow),
+                Math.max((long) centerColumn - minColumn, (long) maxColumn - centerColumn));
+
+        int ring = 0;
+        // Once the rings cover more cells than there are non-empty buckets, visiting the buckets directly is cheaper
+        for (; ring <= maxRing && (2L * ring + 1) * (2L * ring + 1) <= cells.size(); ring++) {
+            if (best.size() == k && best.peek().getKey() <= ringLowerBoundKm(ring, latitude)) {
+                return toList(best); // nothing in this ring or beyond can beat the current k-th match
+            }
+            for (int row = centerRow - ring; row <= centerRow + ring; row++) {
+                boolean edgeRow = row == centerRow - ring || row == centerRow + ring;
+                for (int column = centerColumn - ring; column <= centerColumn + ring; column += edgeRow ? 1 : 2 * Math.max(ring, 1)) {
+                    List<LockerLocation> bucket = cells.get(key(row, column));
+                    if (bucket != null) {
+                        offer(best, k, bucket, latitude, longitude, at, packageSize);
+                    }
+                }
+            }
+        }
+        if (ring <= maxRing) {
+            for (Map.Entry<Long, List<LockerLocation>> cell : cells.entrySet()) {
+                long key = cell.getKey();
+                int cellRing = (int) Math.max(Math.abs((long) (int) (key >> 32) - centerRow), Math.abs((long) (int) key - centerColumn));
+                if (cellRing >= ring && (best.size() < k || best.peek().getKey() > ringLowerBoundKm(cellRing, latitude))) {
+                    offer(best, k, cell.getValue(), latitude, longitude, at, packageSize);
+                }
+            }
+        }
+        return toList(best);
+    }
+
+    private void offer(PriorityQueue<Pair<Double, LockerLocation>> best, int k, List<LockerLocation> bucket,
+                       double latitude, double longitude, LocalTime at, LockerSize packageSize) {
+        for (LockerLocation location : bucket) {
+            double distance = distanceKm(latitude, longitude, location.getLatitude(), location.getLongitude());
+            if ((best.size() < k || distance < best.peek().getKey()) && isEligible(location, at, packageSize)) {
+                best.offer(new Pair<>(distance, location));
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+        }
+    }
+
+    private static List<LockerLocation> toList(PriorityQueue<Pair<Double, LockerLocation>> best) {
+        List<LockerLocation> result = new ArrayList<>();
+        while (!best.isEmpty()) {
+            result.add(best.poll().getValue());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    // Method to find every open location with a free locker for the package within radiusKm, closest first
+    public List<LockerLocation> withinRadius(double latitude, double longitude, double radiusKm, LocalTime at, LockerSize packageSize) {
+        double latitudeDelta = radiusKm / KM_PER_DEGREE;
+        double longitudeDelta = radiusKm / (KM_PER_DEGREE * Math.max(Math.cos(Math.toRadians(Math.min(89.0, Math.abs(latitude) + latitudeDelta))), 1e-6));
+        List<Pair<Double, LockerLocation>> matches = new ArrayList<>();
+        for (int row = row(latitude - latitudeDelta); row <= row(latitude + latitudeDelta); row++) {
+            for (int column = column(longitude - longitudeDelta); column <= column(longitude + longitudeDelta); column++) {
+                List<LockerLocation> bucket = cells.get(key(row, column));
+                if (bucket == null) {
+                    continue;
+                }
+                for (LockerLocation location : bucket) {
+                    double distance = distanceKm(latitude, longitude, location.getLatitude(), location.getLongitude());
+                    if (distance <= radiusKm && isEligible(location, at, packageSize)) {
+                        matches.add(new Pair<>(distance, location));
+                    }
+                }
+            }
+        }
+        matches.sort((a, b) -> Double.compare(a.getKey(), b.getKey()));
+        List<LockerLocation> result = new ArrayList<>();
+        for (Pair<Double, LockerLocation> match : matches) {
+            result.add(match.getValue());
+        }
+        return result;
+    }
+
+    private boolean isEligible(LockerLocation location, LocalTime at, LockerSize packageSize) {
+        return location.isOpenAt(at) && availability.hasFreeLocker(location.getName(), packageSize);
+    }
+
+    // Smallest possible distance from the query point to any location in the given ring of cells
+    private double ringLowerBoundKm(int ring, double latitude) {
+        if (ring <= 1) {
+            return 0;
+        }
+        double farthestLatitude = Math.min(89.0, Math.abs(latitude) + ring * cellDegrees);
+        double cellKm = cellDegrees * KM_PER_DEGREE * Math.cos(Math.toRadians(farthestLatitude));
+        return (ring - 1) * cellKm;
+    }
+
+    static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLatitude / 2) * Math.sin(dLatitude / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(dLongitude / 2) * Math.sin(dLongitude / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor(latitude / cellDegrees);
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor(longitude / cellDegrees);
+    }
+
+    private static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+}
+
+/*
+Hierarchical timing wheel for package pickup deadlines (requirement 6).
+
+LEVELS wheels of 64 slots each; a slot on level i spans 64^i ticks. A deadline goes on the lowest level
+whose range still covers it, and when the clock reaches a higher-level slot its entries are cascaded
+down. Each slot is an intrusive doubly-linked list, so schedule and cancel are O(1) no matter how many
+packages are waiting, and advancing the clock only touches slots that actually come due.
+With the default one-minute tick, four levels cover 64^4 minutes (~32 years); anything farther is
+parked in the top level and re-cascaded until it fits.
+
+Expired packages are handed to the PickupExpiryHandler in one batch per advanceTo() call, outside the lock.
+*/
+class PickupDeadlineWheel {
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMs;
+    private final PickupExpiryHandler handler;
+    private final PickupTimer[][] wheels; // sentinel per slot
+    private final ReentrantLock lock;
+    private long currentTick;
+    private int pending;
+
+    public PickupDeadlineWheel(long startTimeMs, PickupExpiryHandler handler) {
+        this(startTimeMs, TimeUnit.MINUTES.toMillis(1), handler);
+    }
+
+    public PickupDeadlineWheel(long startTimeMs, long tickMs, PickupExpiryHandler handler) {
+        this.tickMs = tickMs;
+        this.handler = handler;
+        this.currentTick = startTimeMs / tickMs;
+        this.wheels = new PickupTimer[LEVELS][SLOTS];
+        for (PickupTimer[] wheel : wheels) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheel[slot] = new PickupTimer(null, 0);
+                wheel[slot].prev = wheel[slot];
+                wheel[slot].next = wheel[slot];
+            }
+        }
+        this.lock = new ReentrantLock();
+    }
+
+    // Method to track a package's pickup deadline; the returned timer cancels it on pickup
+    public PickupTimer schedule(LockerPackage lockerPackage) {
+        PickupTimer timer = new PickupTimer(lockerPackage, Math.max(0, lockerPackage.getPickupDeadline() / tickMs));
+        lock.lock();
+        try {
+            place(timer);
+            pending++;
+        } finally {
+            lock.unlock();
+        }
+        return timer;
+    }
+
+    // Method to stop tracking a package, e.g. once it has been picked up; false if it already expired
+    public boolean cancel(PickupTimer timer) {
+        lock.lock();
+        try {
+            if (timer.next == null) {
+                return false;
+            }
+            unlink(timer);
+            pending--;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Method to move the clock forward and hand every package whose deadline passed to the handler
+    public void advanceTo(long nowMs) {
+        List<LockerPackage> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            long targetTick = nowMs / tickMs;
+            while (currentTick < targetTick) {
+                currentTick++;
+                for (int level = 1; level < LEVELS; level++) {
+                    if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                        break;
+                    }
+                    cascade(level, (int) (currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                }
+                drain(wheels[0][(int) currentTick & SLOT_MASK], expired);
+            }
+            pending -= expired.size();
+        } finally {
+            lock.unlock();
+        }
+        if (!expired.isEmpty()) {
+            handler.onExpired(expired);
+        }
+    }
+
+    public int pendingCount() {
+        lock.lock();
+        try {
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void place(PickupTimer timer) {
+        long deadlineTick = Math.max(timer.deadlineTick, currentTick);
+        int level = 0;
+        while (level < LEVELS - 1 && (deadlineTick >>> (SLOT_BITS * level)) - (currentTick >>> (SLOT_BITS * level)) >= SLOTS) {
+            level++;
+        }
+        long slotTick = deadlineTick >>> (SLOT_BITS * level);
+        long lastReachable = (currentTick >>> (SLOT_BITS * level)) + SLOT_MASK;
+        if (slotTick > lastReachable) {
+            slotTick = lastReachable; // beyond the top wheel: park in its farthest slot and re-cascade later
+        }
+        if (level == 0 && slotTick == currentTick) {
+            slotTick = currentTick + 1; // already due; fire on the next tick
+        }
+        PickupTimer sentinel = wheels[level][(int) slotTick & SLOT_MASK];
+        timer.prev = sentinel.prev;
+        timer.next = sentinel;
+        sentinel.prev.next = timer;
+        sentinel.prev = timer;
+    }
+
+    private void cascade(int level, int slot) {
+        PickupTimer sentinel = wheels[level][slot];
+        PickupTimer timer = sentinel.next;
+        sentinel.next = sentinel;
+        sentinel.prev = sentinel;
+        while (timer != sentinel) {
+            PickupTimer next = timer.next;
+            if (timer.deadlineTick <= currentTick) {
+                // Due exactly now: put it in the level-0 slot that is drained right after cascading
+                PickupTimer due = wheels[0][(int) currentTick & SLOT_MASK];
+                timer.prev = due.prev;
+                timer.next = due;
+                due.prev.next = timer;
+                due.prev = timer;
+            } else {
+                place(timer);
+            }
+            timer = next;
+        }
+    }
+
+    private void drain(PickupTimer sentinel, List<LockerPackage> expired) {
+        PickupTimer timer = sentinel.next;
+        while (timer != sentinel) {
+            PickupTimer next = timer.next;
+            timer.prev = null;
+            timer.next = null;
+            expired.add(timer.lockerPackage);
+            timer = next;
+        }
+        sentinel.next = sentinel;
+        sentinel.prev = sentinel;
+    }
+
+    private static void unlink(PickupTimer timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+    }
+}
+
+// Class to represent a scheduled pickup deadline; also a node in its timing wheel slot
+class PickupTimer {
+    final LockerPackage lockerPackage;
+    final long deadlineTick;
+    PickupTimer prev;
+    PickupTimer next;
+
+    PickupTimer(LockerPackage lockerPackage, long deadlineTick) {
+        this.lockerPackage = lockerPackage;
+        this.deadlineTick = deadlineTick;
+    }
+
+    public LockerPackage getLockerPackage() {
+        return lockerPackage;
+    }
+}
+
+// Interface to receive packages whose pickup window has passed, one batch per clock advance
+interface PickupExpiryHandler {
+    void onExpired(List<LockerPackage> expired);
+}
+
+// Class to represent a refund owed for a package that was never picked up
+class RefundEvent {
+    private final String orderId;
+    private final String packageId;
+    private final String lockerId;
+
+    public RefundEvent(String orderId, String packageId, String lockerId) {
+        this.orderId = orderId;
+        this.packageId = packageId;
+        this.lockerId = lockerId;
+    }
+
+    @Override
+    public String toString() {
+        return "Refund[order=" + orderId + ", package=" + packageId + ", locker=" + lockerId + "]";
     }
 }
 
+// Class to free the lockers of expired packages and publish their refunds as one batch
+class RefundingExpiryHandler implements PickupExpiryHandler {
+    private final LockerService lockerService;
+    private final Consumer<List<RefundEvent>> refundSink;
+
+    public RefundingExpiryHandler(LockerService lockerService, Consumer<List<RefundEvent>> refundSink) {
+        this.lockerService = lockerService;
+        this.refundSink = refundSink;
+    }
+
+    // A package whose locker cannot be reclaimed does not hold up the rest of the batch: every refund that
+    // succeeded is published first, then the failures are rethrown together
+    @Override
+    public void onExpired(List<LockerPackage> expired) {
+        List<RefundEvent> refunds = new ArrayList<>(expired.size());
+        IllegalStateException failures = null;
+        for (LockerPackage lockerPackage : expired) {
+            try {
+                if (lockerService.reclaim(lockerPackage)) {
+                    refunds.add(new RefundEvent(lockerPackage.order.getOrderId(), lockerPackage.getPackageId(), lockerPackage.getLockerId()));
+                }
+            } catch (RuntimeException e) {
+                if (failures == null) {
+                    failures = new IllegalStateException("Could not reclaim the lockers of some expired packages");
+                }
+                failures.addSuppressed(e);
+            }
+        }
+        if (!refunds.isEmpty()) {
+            refundSink.accept(refunds);
+        }
+        if (failures != null) {
+            throw failures;
+        }
+    }
+}
+
+enum NotificationType {
+    DELIVERY, // package placed in the locker, customer gets the pickup code
+    RETURN    // locker booked for a return, customer or delivery agent gets the drop-off code
+}
+
+// Channels the locker notifications go out on; each gets its own queue and worker
+enum NotificationChannel {
+    SMS, EMAIL
+}
+
 class Notification {
     private final String customerId;
     private final String orderId;
     private final String lockerId;
     private final String code;
+    private final NotificationType type;
+    private final NotificationChannel channel;
 
     public Notification(String customerId, String orderId, String lockerId, String code) {
+        this(customerId, orderId, lockerId, code, NotificationType.DELIVERY, NotificationChannel.SMS);
+    }
+
+    public Notification(String customerId, String orderId, String lockerId, String code, NotificationType type, NotificationChannel channel) {
         this.customerId = customerId;
         this.orderId = orderId;
         this.lockerId = lockerId;
         this.code = code;
+        this.type = type;
+        this.channel = channel;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public NotificationType getType() {
+        return type;
+    }
+
+    public NotificationChannel getChannel() {
+        return channel;
     }
 
     public void send() {
         // Logic to send notification
     }
+
+    @Override
+    public String toString() {
+        return type + " code " + code + " for order " + orderId + " (locker " + lockerId + ") to " + customerId + " via " + channel;
+    }
+}
+
+// Interface to a notification provider that accepts a batch of messages for one channel per call
+interface LockerNotificationSender {
+    void sendBatch(NotificationChannel channel, List<Notification> batch) throws Exception;
+}
+
+/*
+Asynchronous OTP notification pipeline for lockers.
+
+submit() only enqueues onto a bounded per-channel queue, so the booking path never waits on a
+provider. One worker per channel takes whatever has queued up (up to maxBatchSize) and delivers it as
+a single sendBatch() call, retrying with exponential backoff. Backpressure is explicit: when a channel's
+queue is full submit() returns false (or waits up to the given timeout) instead of growing without bound.
+Batches that still fail after maxAttempts are counted as dropped.
+*/
+class LockerNotificationDispatcher implements AutoCloseable {
+    private final LockerNotificationSender sender;
+    private final int maxBatchSize;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final Map<NotificationChannel, BlockingQueue<Notification>> queues;
+    private final List<Thread> workers;
+    private final AtomicLong delivered;
+    private final AtomicLong dropped;
+    private final ReentrantReadWriteLock closeLock;
+    private volatile boolean running;
+
+    public LockerNotificationDispatcher(LockerNotificationSender sender) {
+        this(sender, 10_000, 100, 5, 50);
+    }
+
+    public LockerNotificationDispatcher(LockerNotificationSender sender, int queueCapacity, int maxBatchSize, int maxAttempts, long initialBackoffMs) {
+        this.sender = sender;
+        this.maxBatchSize = maxBatchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.queues = new EnumMap<>(NotificationChannel.class);
+        this.workers = new ArrayList<>();
+        this.delivered = new AtomicLong();
+        this.dropped = new AtomicLong();
+        this.closeLock = new ReentrantReadWriteLock();
+        this.running = true;
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            BlockingQueue<Notification> queue = new ArrayBlockingQueue<>(queueCapacity);
+            queues.put(channel, queue);
+            Thread worker = new Thread(() -> drainLoop(channel, queue), "locker-notifications-" + channel);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    // Method to enqueue without blocking; false means the channel is saturated and the caller should back off
+    public boolean submit(Notification notification) {
+        closeLock.readLock().lock();
+        try {
+            checkRunning();
+            return queues.get(notification.getChannel()).offer(notification);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    // Method to enqueue, waiting up to timeout for room in the channel's queue; close() waits for such callers
+    public boolean submit(Notification notification, long timeout, TimeUnit unit) throws InterruptedException {
+        closeLock.readLock().lock();
+        try {
+            checkRunning();
+            return queues.get(notification.getChannel()).offer(notification, timeout, unit);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    public int queueDepth(NotificationChannel channel) {
+        return queues.get(channel).size();
+    }
+
+    public long deliveredCount() {
+        return delivered.get();
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    private void checkRunning() {
+        if (!running) {
+            throw new IllegalStateException("Dispatcher is closed");
+        }
+    }
+
+    private void drainLoop(NotificationChannel channel, BlockingQueue<Notification> queue) {
+        List<Notification> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Notification first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                deliver(channel, batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(NotificationChannel channel, List<Notification> batch) throws InterruptedException {
+        long backoffMs = initialBackoffMs;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                sender.sendBatch(channel, batch);
+                delivered.addAndGet(batch.size());
+                return;
+            } catch (Exception e) {
+                if (attempt < maxAttempts) {
+                    Thread.sleep(backoffMs);
+                    backoffMs *= 2;
+                }
+            }
+        }
+        dropped.addAndGet(batch.size());
+    }
+
+    // Method to stop accepting notifications and wait for the queued ones to be delivered. Taking the write lock
+    // waits out submits in progress, so everything accepted is in a queue before the workers can see running == false.
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        boolean interrupted = false;
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true; // keep waiting so nothing accepted is abandoned, restore the flag afterwards
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
+
+// Class to collect batches in memory instead of calling a real provider, for tests and demos
+class InMemoryNotificationSender implements LockerNotificationSender {
+    private final List<List<Notification>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public void sendBatch(NotificationChannel channel, List<Notification> batch) {
+        batches.add(new ArrayList<>(batch));
+    }
+
+    public List<List<Notification>> getBatches() {
+        return batches;
+    }
 }
 
 public class Main_AmazonLocker {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         LockerService ls = LockerService.getInstance();
         System.out.println(ls.getLocations());
         LockerService ls1 = LockerService.getInstance();
@@ -192,6 +1240,232 @@ public class Main_AmazonLocker {
         System.out.println(ls.getLocations());
         System.out.println(ls1.getLocations());
         System.out.println(LockerService.getInstance().getLocations());
+
+        List<Locker> lockers = List.of(
+                new Locker("l1", LockerSize.SMALL, "austin"),
+                new Locker("l2", LockerSize.LARGE, "austin"));
+        LockerAllocator allocator = new LockerAllocator();
+        allocator.addLocation(new LockerLocation("austin", lockers, -97.74, 30.27, "08:00", "22:00"));
+        Locker small = allocator.allocate("austin", LockerSize.SMALL);
+        Locker fallback = allocator.allocate("austin", LockerSize.SMALL);
+        System.out.println(small.getLockerId() + " " + fallback.getLockerId() + " " + allocator.allocate("austin", LockerSize.SMALL));
+        fallback.transitionTo(LockerState.OPEN);
+        fallback.transitionTo(LockerState.CLOSED);
+        fallback.transitionTo(LockerState.OPEN);
+        allocator.release(fallback);
+        System.out.println(allocator.freeCount("austin", LockerSize.LARGE));
+
+        InMemoryNotificationSender sender = new InMemoryNotificationSender();
+        LockerNotificationDispatcher dispatcher = new LockerNotificationDispatcher(sender);
+        ls.setNotificationDispatcher(dispatcher);
+        ls.addLocation(new LockerLocation("dallas", List.of(new Locker("d1", LockerSize.MEDIUM, "dallas")), -96.80, 32.78, "00:00", "00:00"));
+        long now = System.currentTimeMillis();
+        PickupDeadlineWheel wheel = new PickupDeadlineWheel(now, new RefundingExpiryHandler(ls, System.out::println));
+        ls.setPickupDeadlines(wheel);
+        Locker booked = ls.book("dallas", LockerSize.SMALL);
+        Order order = new Order("o1", List.of(new Item("i1", 1)), "dallas");
+        LockerPackage lockerPackage = new LockerPackage("p1", LockerSize.SMALL, order, 3, "1234", now, booked.getLockerId());
+        System.out.println("pickup code queued: " + ls.deliver(lockerPackage, "c1", NotificationChannel.SMS));
+        wheel.advanceTo(now + TimeUnit.DAYS.toMillis(2));
+        System.out.println(lockerPackage.verifyCode("1234", now + TimeUnit.DAYS.toMillis(2)) + " " + wheel.pendingCount());
+        wheel.advanceTo(now + TimeUnit.DAYS.toMillis(4));
+        System.out.println(booked.getLockerState());
+        // Picked up in time: the deadline is cancelled, so no refund once the locker holds someone else's package
+        long later = now + TimeUnit.DAYS.toMillis(4);
+        LockerPackage collected = new LockerPackage("p3", LockerSize.SMALL, order, 3, "4321", later, ls.book("dallas", LockerSize.SMALL).getLockerId());
+        ls.deliver(collected, "c1", NotificationChannel.SMS);
+        System.out.println("picked up: " + ls.pickup(collected, "4321", later) + ", deadlines pending: " + wheel.pendingCount());
+        ls.setPickupDeadlines(null);
+
+        for (int i = 0; i < 250; i++) {
+            dispatcher.submit(new Notification("c" + i, "o" + i, "d1", "1234", NotificationType.DELIVERY, i % 2 == 0 ? NotificationChannel.SMS : NotificationChannel.EMAIL));
+        }
+        dispatcher.close();
+        ls.setNotificationDispatcher(null);
+        System.out.println(dispatcher.deliveredCount() + " notifications in " + sender.getBatches().size() + " batches");
+
+        // Durable state: log transitions, then "restart" with fresh Locker objects and recover them from the store
+        Path stateDirectory = Files.createTempDirectory("locker-state");
+        try (LockerStateStore store = LockerStateStore.open(stateDirectory)) {
+            ls.setStateStore(store);
+            ls.addLocation(new LockerLocation("houston", List.of(new Locker("h1", LockerSize.SMALL, "houston"),
+                    new Locker("h2", LockerSize.SMALL, "houston")), -95.37, 29.76, "00:00", "00:00"));
+            Locker held = ls.book("houston", LockerSize.SMALL);
+            ls.deliver(new LockerPackage("p2", LockerSize.SMALL, order, 3, "5678", now, held.getLockerId()), "c2", NotificationChannel.SMS);
+            store.snapshot();
+            ls.book("houston", LockerSize.SMALL);
+            ls.setStateStore(null);
+        }
+        try (LockerStateStore store = LockerStateStore.open(stateDirectory)) {
+            ls.addLocation(new LockerLocation("houston", List.of(new Locker("h1", LockerSize.SMALL, "houston"),
+                    new Locker("h2", LockerSize.SMALL, "houston")), -95.37, 29.76, "00:00", "00:00"));
+            int restored = ls.recover(store);
+            ls.setStateStore(null);
+            System.out.println("recovered " + restored + " lockers: h1 " + ls.getLocker("h1").getLockerState() + ", h2 " + ls.getLocker("h2").getLockerState()
+                    + " holding " + ls.getLocker("h2").getPackageId() + ", free small locker: " + ls.hasFreeLocker("houston", LockerSize.SMALL));
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(stateDirectory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(stateDirectory);
     }
 }
 
+// Stress harness: java Examples.LockerBookingStressTest [agents] [locations] [lockersPerLocation] [bookingsPerAgent]
+class LockerBookingStressTest {
+    public static void main(String[] args) throws InterruptedException {
+        int agents = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int locationCount = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int lockersPerLocation = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int bookingsPerAgent = args.length > 3 ? Integer.parseInt(args[3]) : 2_000;
+
+        LockerService service = LockerService.getInstance();
+        LockerSize[] sizes = LockerSize.values();
+        for (int l = 0; l < locationCount; l++) {
+            String locationId = "stress-" + l;
+            List<Locker> lockers = new ArrayList<>();
+            for (int i = 0; i < lockersPerLocation; i++) {
+                lockers.add(new Locker(locationId + "-" + i, sizes[i % sizes.length], locationId));
+            }
+            service.addLocation(new LockerLocation(locationId, lockers, 0, 0, "00:00", "23:59"));
+        }
+
+        // Holder of every locker; an agent that finds a locker already held has observed a double booking
+        ConcurrentHashMap<Locker, Integer> holders = new ConcurrentHashMap<>();
+        AtomicLong booked = new AtomicLong();
+        AtomicLong full = new AtomicLong();
+        AtomicLong doubleBooked = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int a = 0; a < agents; a++) {
+            int agent = a;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(agent);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < bookingsPerAgent; i++) {
+                    String locationId = "stress-" + random.nextInt(locationCount);
+                    Locker locker = service.book(locationId, sizes[random.nextInt(sizes.length)]);
+                    if (locker == null) {
+                        full.incrementAndGet();
+                        continue;
+                    }
+                    if (holders.putIfAbsent(locker, agent) != null) {
+                        doubleBooked.incrementAndGet();
+                        continue;
+                    }
+                    booked.incrementAndGet();
+                    service.transition(locker, LockerState.OPEN);
+                    service.transition(locker, LockerState.CLOSED);
+                    service.transition(locker, LockerState.OPEN);
+                    holders.remove(locker);
+                    service.release(locker);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedMs = Math.max(1, (System.nanoTime() - begin) / 1_000_000);
+        System.out.println(agents + " agents: " + booked.get() + " bookings, " + full.get() + " found no locker, "
+                + doubleBooked.get() + " double bookings, " + booked.get() * 1000 / elapsedMs + " bookings/s");
+        if (doubleBooked.get() != 0) {
+            throw new IllegalStateException("Double booking detected");
+        }
+    }
+}
+
+// Benchmark: java Examples.LockerLocationIndexBenchmark [locations] [queries]
+class LockerLocationIndexBenchmark {
+    public static void main(String[] args) {
+        int locationCount = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        Random random = new Random(42);
+        LockerAllocator allocator = new LockerAllocator();
+        LockerLocationIndex index = new LockerLocationIndex(allocator);
+        List<LockerLocation> all = new ArrayList<>();
+        for (int i = 0; i < locationCount; i++) {
+            String name = "loc" + i;
+            List<Locker> lockers = List.of(new Locker(name + "-s", LockerSize.SMALL, name),
+                    new Locker(name + "-l", LockerSize.LARGE, name));
+            // Continental US bounding box; a tenth of the locations only open during the day
+            LockerLocation location = new LockerLocation(name, lockers,
+                    -124 + random.nextDouble() * 57, 25 + random.nextDouble() * 24,
+                    i % 10 == 0 ? "08:00" : "00:00", i % 10 == 0 ? "20:00" : "00:00");
+            allocator.addLocation(location);
+            index.add(location);
+            all.add(location);
+        }
+
+        LocalTime night = LocalTime.of(23, 0);
+        // Edge cases: an empty index, k == 0, and a sparse index where nothing is eligible must all return at once
+        if (!new LockerLocationIndex(allocator).nearest(30, -97, 5, night, LockerSize.SMALL).isEmpty()
+                || !index.nearest(30, -97, 0, night, LockerSize.SMALL).isEmpty()) {
+            throw new IllegalStateException("nearest() must be empty for an empty index or k == 0");
+        }
+        LockerAllocator smallOnly = new LockerAllocator();
+        LockerLocationIndex sparse = new LockerLocationIndex(smallOnly);
+        for (LockerLocation location : List.of(
+                new LockerLocation("west", List.of(new Locker("west-s", LockerSize.SMALL, "west")), -170, -80, "00:00", "00:00"),
+                new LockerLocation("east", List.of(new Locker("east-s", LockerSize.SMALL, "east")), 170, 80, "00:00", "00:00"))) {
+            smallOnly.addLocation(location);
+            sparse.add(location);
+        }
+        long sparseStart = System.nanoTime();
+        if (!sparse.nearest(0, 0, 5, night, LockerSize.LARGE).isEmpty() || sparse.nearest(0, 0, 5, night, LockerSize.SMALL).size() != 2) {
+            throw new IllegalStateException("nearest() disagrees on a sparse index");
+        }
+        System.out.println("sparse index with no eligible location: " + (System.nanoTime() - sparseStart) / 1000 + " us");
+
+        // Correctness spot check against a linear scan
+        List<LockerLocation> openAtNight = new ArrayList<>(all);
+        openAtNight.removeIf(l -> !l.isOpenAt(night));
+        for (int q = 0; q < 20; q++) {
+            double latitude = 25 + random.nextDouble() * 24;
+            double longitude = -124 + random.nextDouble() * 57;
+            PriorityQueue<Pair<Double, LockerLocation>> closest = new PriorityQueue<>((a, b) -> Double.compare(b.getKey(), a.getKey()));
+            for (LockerLocation l : openAtNight) {
+                closest.offer(new Pair<>(LockerLocationIndex.distanceKm(latitude, longitude, l.getLatitude(), l.getLongitude()), l));
+                if (closest.size() > 5) {
+                    closest.poll();
+                }
+            }
+            List<LockerLocation> expected = new ArrayList<>();
+            while (!closest.isEmpty()) {
+                expected.add(0, closest.poll().getValue());
+            }
+            if (!index.nearest(latitude, longitude, 5, night, LockerSize.MEDIUM).equals(expected)) {
+                throw new IllegalStateException("nearest() disagrees with a linear scan");
+            }
+        }
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            int found = 0;
+            for (int q = 0; q < queries; q++) {
+                found += index.nearest(25 + random.nextDouble() * 24, -124 + random.nextDouble() * 57, 5, night, LockerSize.MEDIUM).size();
+            }
+            long nearestNs = (System.nanoTime() - start) / queries;
+
+            start = System.nanoTime();
+            for (int q = 0; q < queries; q++) {
+                found += index.withinRadius(25 + random.nextDouble() * 24, -124 + random.nextDouble() * 57, 10, night, LockerSize.MEDIUM).size();
+            }
+            long radiusNs = (System.nanoTime() - start) / queries;
+            System.out.println("round " + round + ": " + locationCount + " locations, 5-nearest " + nearestNs / 1000.0
+                    + " us/query, 10 km radius " + radiusNs / 1000.0 + " us/query (" + found + " results)");
+        }
+    }
+}
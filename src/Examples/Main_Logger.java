@@ -1,8 +1,20 @@
 package Examples;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
 // Singleton class
+// Lines end with System.lineSeparator() like println, but are always encoded as UTF-8, whatever the platform charset
 class Singleton {
-    private static Singleton instance;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static volatile Singleton instance;
+
+    // Each thread formats into its own reusable encoder, so a steady-state log call allocates nothing
+    private final ThreadLocal<LogEncoder> encoders = ThreadLocal.withInitial(LogEncoder::new);
+    private volatile OutputStream out = System.out;
 
     private Singleton() {
         // Private constructor to prevent instantiation
@@ -20,7 +32,268 @@ class Singleton {
     }
 
     public void log(String log) {
-        System.out.println(log);
+        LogEncoder encoder = encoders.get().reset();
+        encoder.appendText(log);
+        write(encoder);
+    }
+
+    public void setOutput(OutputStream out) {
+        this.out = out;
+    }
+
+    // Parameterized messages: each "{}" in the template is replaced by the next argument. An argument left without
+    // a "{}" is appended right after the template text, and a "{}" left without an argument is printed as is
+    public void log(String template, long arg) {
+        LogEncoder encoder = encoders.get().reset();
+        int from = encoder.appendUntilPlaceholder(template, 0);
+        encoder.appendLong(arg);
+        encoder.appendTemplateTail(template, from);
+        write(encoder);
+    }
+
+    public void log(String template, long arg1, long arg2) {
+        LogEncoder encoder = encoders.get().reset();
+        int from = encoder.appendUntilPlaceholder(template, 0);
+        encoder.appendLong(arg1);
+        from = encoder.appendUntilPlaceholder(template, from);
+        encoder.appendLong(arg2);
+        encoder.appendTemplateTail(template, from);
+        write(encoder);
+    }
+
+    public void log(String template, double arg) {
+        LogEncoder encoder = encoders.get().reset();
+        int from = encoder.appendUntilPlaceholder(template, 0);
+        encoder.appendDouble(arg);
+        encoder.appendTemplateTail(template, from);
+        write(encoder);
+    }
+
+    public void log(String template, boolean arg) {
+        LogEncoder encoder = encoders.get().reset();
+        int from = encoder.appendUntilPlaceholder(template, 0);
+        encoder.appendText(arg ? "true" : "false");
+        encoder.appendTemplateTail(template, from);
+        write(encoder);
+    }
+
+    public void log(String template, CharSequence arg) {
+        LogEncoder encoder = encoders.get().reset();
+        int from = encoder.appendUntilPlaceholder(template, 0);
+        encoder.appendText(arg);
+        encoder.appendTemplateTail(template, from);
+        write(encoder);
+    }
+
+    public void log(String template, CharSequence arg1, long arg2) {
+        LogEncoder encoder = encoders.get().reset();
+        int from = encoder.appendUntilPlaceholder(template, 0);
+        encoder.appendText(arg1);
+        from = encoder.appendUntilPlaceholder(template, from);
+        encoder.appendLong(arg2);
+        encoder.appendTemplateTail(template, from);
+        write(encoder);
+    }
+
+    // Structured events: event("order.accepted").with("id", 42).with("total", 9.5).log()
+    // The returned event is this thread's reusable instance and must be logged before the next event() call
+    public LogEvent event(String name) {
+        LogEncoder encoder = encoders.get().reset();
+        encoder.appendText(name);
+        return encoder.event;
+    }
+
+    void write(LogEncoder encoder) {
+        encoder.appendText(LINE_SEPARATOR, 0, LINE_SEPARATOR.length());
+        try {
+            out.write(encoder.bytes, 0, encoder.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
+
+// Reusable per-thread UTF-8 line buffer; grows only when a line outgrows it
+class LogEncoder {
+    byte[] bytes = new byte[256];
+    int length;
+    final LogEvent event = new LogEvent(this);
+
+    LogEncoder reset() {
+        length = 0;
+        return this;
+    }
+
+    // Copies template text up to the next "{}" and returns the index just past it (or the template length)
+    int appendUntilPlaceholder(String template, int from) {
+        int placeholder = template.indexOf("{}", from);
+        int end = placeholder < 0 ? template.length() : placeholder;
+        appendText(template, from, end);
+        return placeholder < 0 ? end : placeholder + 2;
+    }
+
+    void appendTemplateTail(String template, int from) {
+        appendText(template, from, template.length());
+    }
+
+    // A null text is written as "null", the way System.out.println does
+    void appendText(CharSequence text) {
+        if (text == null) {
+            appendText("null", 0, 4);
+            return;
+        }
+        appendText(text, 0, text.length());
+    }
+
+    // Text for a quoted field value: backslash-escapes quotes and backslashes, and line breaks so an event stays on one line
+    void appendEscaped(CharSequence text) {
+        int run = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != '"' && c != '\\' && c != '\n' && c != '\r') {
+                continue;
+            }
+            appendText(text, run, i);
+            appendByte('\\');
+            appendByte(c == '\n' ? 'n' : c == '\r' ? 'r' : c);
+            run = i + 1;
+        }
+        appendText(text, run, text.length());
+    }
+
+    void appendText(CharSequence text, int from, int to) {
+        ensureCapacity((to - from) * 3);
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes[length++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[length++] = (byte) (0xC0 | c >> 6);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                bytes[length++] = (byte) (0xF0 | codePoint >> 18);
+                bytes[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                bytes[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | codePoint & 0x3F);
+            } else {
+                bytes[length++] = (byte) (0xE0 | c >> 12);
+                bytes[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+    }
+
+    void appendByte(char c) {
+        ensureCapacity(1);
+        bytes[length++] = (byte) c;
+    }
+
+    void appendLong(long value) {
+        ensureCapacity(20);
+        if (value == Long.MIN_VALUE) {
+            appendText("-9223372036854775808");
+            return;
+        }
+        if (value < 0) {
+            bytes[length++] = '-';
+            value = -value;
+        }
+        int start = length;
+        do {
+            bytes[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            byte swap = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = swap;
+        }
+    }
+
+    // Up to six fractional digits with trailing zeros trimmed; very large magnitudes fall back to Double.toString
+    void appendDouble(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= 1e12) {
+            appendText(Double.toString(value));
+            return;
+        }
+        long scaled = Math.round(Math.abs(value) * 1_000_000);
+        if (value < 0 && scaled != 0) {
+            appendByte('-');
+        }
+        appendLong(scaled / 1_000_000);
+        long fraction = scaled % 1_000_000;
+        if (fraction == 0) {
+            return;
+        }
+        appendByte('.');
+        int digits = 6;
+        while (fraction % 10 == 0) {
+            fraction /= 10;
+            digits--;
+        }
+        ensureCapacity(digits);
+        for (int i = digits - 1; i >= 0; i--) {
+            bytes[length + i] = (byte) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        length += digits;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+}
+
+// Key/value fields appended to the owning thread's encoder; written as "name key=value key=\"text\"",
+// with quotes, backslashes and line breaks in text escaped and a null text written as a bare null
+class LogEvent {
+    private final LogEncoder encoder;
+
+    LogEvent(LogEncoder encoder) {
+        this.encoder = encoder;
+    }
+
+    LogEvent with(String key, long value) {
+        key(key);
+        encoder.appendLong(value);
+        return this;
+    }
+
+    LogEvent with(String key, double value) {
+        key(key);
+        encoder.appendDouble(value);
+        return this;
+    }
+
+    LogEvent with(String key, boolean value) {
+        key(key);
+        encoder.appendText(value ? "true" : "false");
+        return this;
+    }
+
+    LogEvent with(String key, CharSequence value) {
+        key(key);
+        if (value == null) {
+            encoder.appendText("null");
+            return this;
+        }
+        encoder.appendByte('"');
+        encoder.appendEscaped(value);
+        encoder.appendByte('"');
+        return this;
+    }
+
+    void log() {
+        Singleton.getInstance().write(encoder);
+    }
+
+    private void key(String key) {
+        encoder.appendByte(' ');
+        encoder.appendText(key);
+        encoder.appendByte('=');
     }
 }
 
@@ -34,6 +307,44 @@ public class Main_Logger {
         System.out.println(logger2);
 
         MyClass.doSomething("hello");
+
+        logger1.log("order {} shipped in {} ms", 42, 17);
+        logger1.log("cart total is {}", 99.95);
+        logger1.event("order.accepted").with("id", 42).with("customer", "alice").with("total", 99.95).log();
+    }
+}
+
+// Allocation check for the garbage-free log paths, measured with the per-thread allocation counter
+class LoggerAllocationBenchmark {
+    public static void main(String[] args) {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Singleton logger = Singleton.getInstance();
+        logger.setOutput(OutputStream.nullOutputStream());
+
+        for (int round = 0; round < 3; round++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < events; i++) {
+                logger.log("order " + i + " shipped in " + (i & 127) + " ms");
+            }
+            long concatenated = threads.getCurrentThreadAllocatedBytes() - before;
+
+            before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < events; i++) {
+                logger.log("order {} shipped in {} ms", i, i & 127);
+            }
+            long parameterized = threads.getCurrentThreadAllocatedBytes() - before;
+
+            before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < events; i++) {
+                logger.event("order.shipped").with("id", i).with("customer", "alice").with("total", i * 0.25).log();
+            }
+            long structured = threads.getCurrentThreadAllocatedBytes() - before;
+
+            System.out.printf("round %d bytes/event: concatenated %.2f, parameterized %.2f, structured %.2f%n",
+                    round, (double) concatenated / events, (double) parameterized / events, (double) structured / events);
+        }
+        logger.setOutput(System.out);
     }
 }
 
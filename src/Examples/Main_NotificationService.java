@@ -42,118 +42,12 @@ Code contains major syntax errors or is in pseudo-code
 Code doesn't work as intended
 
 */
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-// Enum to represent different channels for messaging
-enum Channel {
-    DEFAULT, EMAIL, SMS
-}
-
-// Abstract base class for messages
-abstract class IMessage {
-    protected String id;
-    protected String message;
-
-    public IMessage(String id, String message) {
-        this.id = id;
-        this.message = message;
-    }
-
-    @Override
-    public abstract String toString();
-}
-
-// Class for email messages
-class EmailMessage extends IMessage {
-    private String email;
-
-    public EmailMessage(String id, String message, String email) {
-        super(id, message);
-        this.email = email;
-    }
-
-    @Override
-    public String toString() {
-        return "Email message [id: " + id + ", message: " + message + "] to " + email;
-    }
-}
-
-// Class for SMS messages
-class SMSMessage extends IMessage {
-    private String mobileNumber;
-
-    public SMSMessage(String id, String message, String mobileNumber) {
-        super(id, message);
-        this.mobileNumber = mobileNumber;
-    }
-
-    @Override
-    public String toString() {
-        return "SMS message [id: " + id + ", message: " + message + "] to " + mobileNumber;
-    }
-}
-
-// Abstract base class for notification handlers
-abstract class BaseNotificationHandler {
-    public abstract void send(IMessage message);
-    public abstract Channel getChannel();
-}
-
-// Class for handling email notifications
-class EmailNotificationHandler extends BaseNotificationHandler {
-    @Override
-    public void send(IMessage message) {
-        // Custom logic for sending email (maybe through a 3rd party service)
-        System.out.println("Sent " + message);
-    }
-
-    @Override
-    public Channel getChannel() {
-        return Channel.EMAIL;
-    }
-}
-
-// Class for handling SMS notifications
-class SMSNotificationHandler extends BaseNotificationHandler {
-    @Override
-    public void send(IMessage message) {
-        // Custom logic for sending SMS
-        System.out.println("Sent " + message);
-    }
-
-    @Override
-    public Channel getChannel() {
-        return Channel.SMS;
-    }
-}
-
-// Singleton factory class for managing notification handlers
-class NotificationHandlerFactory {
-    private static NotificationHandlerFactory instance = null;
-    private Map<Channel, BaseNotificationHandler> handlers;
-
-    private NotificationHandlerFactory() {
-        handlers = new HashMap<>();
-    }
-
-    public static NotificationHandlerFactory getInstance() {
-        if (instance == null) {
-            instance = new NotificationHandlerFactory();
-        }
-        return instance;
-    }
-
-    public void addHandler(BaseNotificationHandler handler) {
-        handlers.put(handler.getChannel(), handler);
-    }
-
-    public BaseNotificationHandler getHandler(Channel channel) {
-        return handlers.get(channel);
-    }
-}
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
 
 // Service class for sending messages
 class MessageService {
@@ -164,30 +58,26 @@ class MessageService {
     }
 
     public void sendNotifications(String messagesToSend) {
-        // Convert JSON string to list of maps
-        List<Map<String, String>> messageList = new ArrayList<>();
-        messageList = parseJson(messagesToSend);
-
-        for (Map<String, String> message : messageList) {
-            if (message.get("channel").equals("email")) {
-                EmailMessage emailMessage = new EmailMessage(
-                        message.get("id"), message.get("message"), message.get("email"));
-                BaseNotificationHandler handler = notificationHandlerFactory.getHandler(Channel.EMAIL);
-                handler.send(emailMessage);
-            } else if (message.get("channel").equals("sms")) {
-                SMSMessage smsMessage = new SMSMessage(
-                        message.get("id"), message.get("message"), message.get("mobileNumber"));
-                BaseNotificationHandler handler = notificationHandlerFactory.getHandler(Channel.SMS);
-                handler.send(smsMessage);
-            }
-        }
+        send(new MessageJsonReader(messagesToSend));
+    }
+
+    public void sendNotifications(InputStream messagesToSend) {
+        send(new MessageJsonReader(messagesToSend));
+    }
+
+    public void sendNotifications(ByteBuffer messagesToSend) {
+        send(new MessageJsonReader(messagesToSend));
     }
 
-    // Method to parse JSON string into a list of maps (for simplicity, assume valid JSON)
-    private List<Map<String, String>> parseJson(String jsonString) {
-        // Implement JSON parsing (e.g., using a library like Jackson or Gson)
-        // For now, return an empty list
-        return new ArrayList<>();
+    // Messages are parsed and sent one at a time, so memory does not grow with the payload
+    private void send(MessageJsonReader reader) {
+        for (IMessage message = reader.next(); message != null; message = reader.next()) {
+            BaseNotificationHandler handler = notificationHandlerFactory.getHandler(message.getChannel());
+            if (handler == null) {
+                throw new IllegalStateException("No handler registered for channel " + message.getChannel());
+            }
+            handler.send(message);
+        }
     }
 }
 
@@ -210,3 +100,67 @@ public class Main_NotificationService {
     }
 }
 
+// Streams a generated payload of N messages through MessageService and reports throughput and heap growth
+class MessageJsonReaderBenchmark {
+    public static void main(String[] args) {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        long[] sent = new long[2];
+        NotificationHandlerFactory handlerFactory = NotificationHandlerFactory.getInstance();
+        handlerFactory.addHandler(new EmailNotificationHandler() {
+            @Override
+            public void send(IMessage message) {
+                sent[0]++;
+            }
+        });
+        handlerFactory.addHandler(new SMSNotificationHandler() {
+            @Override
+            public void send(IMessage message) {
+                sent[1]++;
+            }
+        });
+        MessageService messageService = new MessageService(handlerFactory);
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        messageService.sendNotifications(generatedPayload(messages));
+        long elapsedNs = System.nanoTime() - start;
+        System.gc();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+        System.out.println("Sent " + sent[0] + " emails and " + sent[1] + " SMS in " + elapsedNs / 1_000_000 + " ms ("
+                + messages * 1_000_000_000L / elapsedNs + " msgs/s), retained heap delta "
+                + (heapAfter - heapBefore) / 1024 + " KB");
+    }
+
+    // The payload is produced lazily, one message at a time, so it is never held in memory as a whole
+    private static InputStream generatedPayload(int messages) {
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            private int next = -1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return next <= messages;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                int i = next++;
+                String chunk;
+                if (i < 0) {
+                    chunk = "[";
+                } else if (i == messages) {
+                    chunk = "]";
+                } else if (i % 2 == 0) {
+                    chunk = (i > 0 ? "," : "") + "{\"id\": \"" + i + "\", \"channel\": \"email\", \"message\": \"Your order "
+                            + i + " has shipped\", \"email\": \"customer" + i + "@example.com\"}";
+                } else {
+                    chunk = ",{\"id\": " + i + ", \"channel\": \"sms\", \"priority\": {\"level\": [1, 2]}, "
+                            + "\"message\": \"Deal \\u00e9 #" + i + "\", \"mobileNumber\": \"555" + i + "\"}";
+                }
+                return new ByteArrayInputStream(chunk.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+}
@@ -0,0 +1,334 @@
+package Examples;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * Pull-based reader for MessageService payloads: a JSON array of message objects (or a single object).
+ * Each call to next() parses exactly one object straight into an IMessage, so a payload of any size is
+ * processed with one fixed read buffer and one scratch buffer. Keys and the channel value are compared as
+ * raw UTF-8 bytes; only the fields a message actually keeps are turned into Strings. Unknown keys are
+ * skipped, and objects whose channel is not email or sms are skipped like in the original service.
+ */
+class MessageJsonReader {
+    private static final byte[] ID = ascii("id");
+    private static final byte[] CHANNEL = ascii("channel");
+    private static final byte[] MESSAGE = ascii("message");
+    private static final byte[] EMAIL = ascii("email");
+    private static final byte[] MOBILE_NUMBER = ascii("mobileNumber");
+    private static final byte[] SMS = ascii("sms");
+    private static final byte[] NULL = ascii("null");
+
+    private final InputStream in;
+    private final ByteBuffer buffer;
+    private long bufferStart;
+    private byte[] scratch = new byte[256];
+    private int scratchLength;
+    private boolean started;
+    private boolean finished;
+    private boolean array;
+
+    MessageJsonReader(String payload) {
+        this(ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Reads from the buffer's position to its limit without moving the caller's position
+    MessageJsonReader(ByteBuffer payload) {
+        this.in = null;
+        this.buffer = payload.duplicate();
+        this.bufferStart = -buffer.position();
+    }
+
+    MessageJsonReader(InputStream payload) {
+        this.in = payload;
+        this.buffer = ByteBuffer.allocate(8192);
+        this.buffer.limit(0);
+    }
+
+    // Returns the next message, or null once the payload is exhausted
+    IMessage next() {
+        if (!started) {
+            started = true;
+            skipWhitespace();
+            int c = peek();
+            if (c == '[') {
+                read();
+                array = true;
+                skipWhitespace();
+                if (peek() == ']') {
+                    read();
+                    finished = true;
+                }
+            } else if (c == '{') {
+                array = false;
+            } else if (c == -1) {
+                finished = true;
+            } else {
+                throw malformed("expected '[' or '{'");
+            }
+        }
+        while (!finished) {
+            IMessage message = readObject();
+            skipWhitespace();
+            if (!array) {
+                finished = true;
+            } else {
+                int c = read();
+                if (c == ']') {
+                    finished = true;
+                } else if (c != ',') {
+                    throw malformed("expected ',' or ']'");
+                }
+                skipWhitespace();
+            }
+            if (message != null) {
+                return message;
+            }
+        }
+        return null;
+    }
+
+    private IMessage readObject() {
+        expect('{');
+        String id = null;
+        String text = null;
+        String email = null;
+        String mobileNumber = null;
+        Channel channel = Channel.DEFAULT;
+        skipWhitespace();
+        if (peek() == '}') {
+            read();
+            return null;
+        }
+        while (true) {
+            skipWhitespace();
+            readString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            if (scratchEquals(CHANNEL)) {
+                readString();
+                channel = scratchEquals(EMAIL) ? Channel.EMAIL : scratchEquals(SMS) ? Channel.SMS : Channel.DEFAULT;
+            } else if (scratchEquals(ID)) {
+                id = readScalar();
+            } else if (scratchEquals(MESSAGE)) {
+                text = readScalar();
+            } else if (scratchEquals(EMAIL)) {
+                email = readScalar();
+            } else if (scratchEquals(MOBILE_NUMBER)) {
+                mobileNumber = readScalar();
+            } else {
+                skipValue();
+            }
+            skipWhitespace();
+            int c = read();
+            if (c == '}') {
+                break;
+            }
+            if (c != ',') {
+                throw malformed("expected ',' or '}'");
+            }
+        }
+        switch (channel) {
+            case EMAIL:
+                return new EmailMessage(id, text, email);
+            case SMS:
+                return new SMSMessage(id, text, mobileNumber);
+            default:
+                return null;
+        }
+    }
+
+    // A string value, or the raw text of a number/true/false; null for a JSON null
+    private String readScalar() {
+        if (peek() == '"') {
+            readString();
+        } else {
+            scratchLength = 0;
+            for (int c = peek(); c != -1 && c != ',' && c != '}' && c != ']' && !isWhitespace(c); c = peek()) {
+                append(read());
+            }
+            if (scratchLength == 0) {
+                throw malformed("expected a value");
+            }
+            if (scratchEquals(NULL)) {
+                return null;
+            }
+        }
+        return new String(scratch, 0, scratchLength, StandardCharsets.UTF_8);
+    }
+
+    // Decodes a quoted string (escapes resolved) into the scratch buffer as UTF-8
+    private void readString() {
+        expect('"');
+        scratchLength = 0;
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                return;
+            }
+            if (c == -1) {
+                throw malformed("unterminated string");
+            }
+            if (c != '\\') {
+                append(c);
+                continue;
+            }
+            int escaped = read();
+            switch (escaped) {
+                case '"': case '\\': case '/': append(escaped); break;
+                case 'b': append('\b'); break;
+                case 'f': append('\f'); break;
+                case 'n': append('\n'); break;
+                case 'r': append('\r'); break;
+                case 't': append('\t'); break;
+                case 'u': appendCodePoint(readUnicodeEscape()); break;
+                default: throw malformed("bad escape");
+            }
+        }
+    }
+
+    private int readUnicodeEscape() {
+        int high = readHex4();
+        if (!Character.isHighSurrogate((char) high) || peek() != '\\') {
+            return high;
+        }
+        read();
+        if (read() != 'u') {
+            throw malformed("expected low surrogate");
+        }
+        return Character.toCodePoint((char) high, (char) readHex4());
+    }
+
+    private int readHex4() {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(read(), 16);
+            if (digit < 0) {
+                throw malformed("bad \\u escape");
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    private void skipValue() {
+        int c = peek();
+        if (c == '"') {
+            readString();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                c = peek();
+                if (c == '"') {
+                    readString();
+                    continue;
+                }
+                read();
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                } else if (c == -1) {
+                    throw malformed("unterminated value");
+                }
+            } while (depth > 0);
+        } else {
+            readScalar();
+        }
+    }
+
+    private boolean scratchEquals(byte[] expected) {
+        if (scratchLength != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < scratchLength; i++) {
+            if (scratch[i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void appendCodePoint(int codePoint) {
+        if (codePoint < 0x80) {
+            append(codePoint);
+        } else if (codePoint < 0x800) {
+            append(0xC0 | codePoint >> 6);
+            append(0x80 | codePoint & 0x3F);
+        } else if (codePoint < 0x10000) {
+            append(0xE0 | codePoint >> 12);
+            append(0x80 | codePoint >> 6 & 0x3F);
+            append(0x80 | codePoint & 0x3F);
+        } else {
+            append(0xF0 | codePoint >> 18);
+            append(0x80 | codePoint >> 12 & 0x3F);
+            append(0x80 | codePoint >> 6 & 0x3F);
+            append(0x80 | codePoint & 0x3F);
+        }
+    }
+
+    private void append(int b) {
+        if (scratchLength == scratch.length) {
+            scratch = Arrays.copyOf(scratch, scratch.length * 2);
+        }
+        scratch[scratchLength++] = (byte) b;
+    }
+
+    private void expect(char expected) {
+        if (read() != expected) {
+            throw malformed("expected '" + expected + "'");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (isWhitespace(peek())) {
+            read();
+        }
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private int peek() {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    private int read() {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    private boolean fill() {
+        if (in == null) {
+            return false;
+        }
+        try {
+            bufferStart += buffer.limit();
+            int n = in.read(buffer.array(), 0, buffer.capacity());
+            buffer.position(0);
+            buffer.limit(Math.max(n, 0));
+            return n > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private IllegalArgumentException malformed(String reason) {
+        return new IllegalArgumentException("Malformed message payload at byte " + (bufferStart + buffer.position()) + ": " + reason);
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,286 @@
+package Examples;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Micro-batching decorator for a notification handler. send() only buffers the message; a flusher thread hands
+ * the buffer to the delegate's sendBatch once it reaches the target batch size or the oldest message has waited
+ * the linger time, whichever comes first. The target adapts to the provider: it grows additively while flushes are
+ * full and the smoothed provider latency stays within the budget, and halves as soon as the latency exceeds it.
+ * send() returning means the message is buffered, not delivered; failures are counted, not rethrown to senders.
+ * close() waits for sends in progress, wakes the flusher with an end marker queued behind the last message and
+ * flushes whatever is left once the flusher has stopped. Producers that still hold the batcher after that (e.g.
+ * across NotificationHandlerFactory.disableMicroBatching) send straight through the delegate.
+ */
+class MicroBatchingNotificationHandler extends BaseNotificationHandler implements AutoCloseable {
+    // Queued by close() behind every accepted message; never handed to the delegate
+    private static final IMessage END_OF_INPUT = new IMessage(null, null) {
+        @Override
+        public Channel getChannel() {
+            return Channel.DEFAULT;
+        }
+
+        @Override
+        public String toString() {
+            return "end of input";
+        }
+    };
+
+    private final BaseNotificationHandler delegate;
+    private final BlockingQueue<IMessage> buffer;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final long latencyBudgetNanos;
+    private final Thread flusher;
+    private final AtomicLong providerCalls = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock(); // read: send, write: close
+    private volatile int targetBatchSize = 1;
+    private volatile long averageLatencyNanos;
+    private volatile boolean running = true;
+
+    public MicroBatchingNotificationHandler(BaseNotificationHandler delegate) {
+        this(delegate, 500, 5, 100);
+    }
+
+    public MicroBatchingNotificationHandler(BaseNotificationHandler delegate, int maxBatchSize, long lingerMillis, long latencyBudgetMillis) {
+        this(delegate, maxBatchSize, lingerMillis, latencyBudgetMillis, 50_000);
+    }
+
+    public MicroBatchingNotificationHandler(BaseNotificationHandler delegate, int maxBatchSize, long lingerMillis, long latencyBudgetMillis, int bufferCapacity) {
+        if (maxBatchSize <= 0 || lingerMillis < 0 || latencyBudgetMillis <= 0 || bufferCapacity <= 0) {
+            throw new IllegalArgumentException("Batch size, latency budget and buffer capacity must be positive, linger non-negative");
+        }
+        this.delegate = delegate;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.latencyBudgetNanos = TimeUnit.MILLISECONDS.toNanos(latencyBudgetMillis);
+        this.flusher = new Thread(this::flushLoop, "notification-batcher-" + delegate.getChannel());
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    // Buffers the message, blocking while the buffer is full; once closed, sends it directly through the delegate
+    @Override
+    public void send(IMessage message) {
+        closeLock.readLock().lock();
+        try {
+            if (running) {
+                buffer.put(message);
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while buffering message", e);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        delegate.send(message);
+    }
+
+    @Override
+    public Channel getChannel() {
+        return delegate.getChannel();
+    }
+
+    public BaseNotificationHandler getDelegate() {
+        return delegate;
+    }
+
+    public long getProviderCalls() {
+        return providerCalls.get();
+    }
+
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public int getTargetBatchSize() {
+        return targetBatchSize;
+    }
+
+    public long getAverageLatencyNanos() {
+        return averageLatencyNanos;
+    }
+
+    // Stops buffering, waits for the flusher to send everything buffered, then flushes anything it left behind
+    @Override
+    public void close() {
+        boolean interrupted = false;
+        closeLock.writeLock().lock(); // waits out sends that are putting into the buffer
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+            // Wake the flusher; if it already died the buffer may stay full, so stop trying once it is gone
+            while (flusher.isAlive()) {
+                try {
+                    if (buffer.offer(END_OF_INPUT, 10, TimeUnit.MILLISECONDS)) {
+                        break;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        while (flusher.isAlive()) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        List<IMessage> rest = new ArrayList<>();
+        buffer.drainTo(rest);
+        rest.remove(END_OF_INPUT);
+        if (!rest.isEmpty()) {
+            flush(rest);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushLoop() {
+        List<IMessage> batch = new ArrayList<>(maxBatchSize);
+        boolean ended = false;
+        while (!ended) {
+            try {
+                IMessage first = buffer.take();
+                if (first == END_OF_INPUT) {
+                    return;
+                }
+                batch.add(first);
+                ended = fill(batch, System.nanoTime() + lingerNanos);
+            } catch (InterruptedException e) {
+                // Nobody but a stray interrupt gets here; close() flushes what is left
+                ended = true;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Tops the batch up to the target size, waiting for stragglers until the linger deadline; true once the end marker is reached
+    private boolean fill(List<IMessage> batch, long deadline) throws InterruptedException {
+        int target = targetBatchSize;
+        while (batch.size() < target) {
+            buffer.drainTo(batch, target - batch.size());
+            if (batch.get(batch.size() - 1) == END_OF_INPUT) {
+                batch.remove(batch.size() - 1); // the marker is the last thing ever queued
+                return true;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= target || remaining <= 0) {
+                return false;
+            }
+            IMessage next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return false;
+            }
+            if (next == END_OF_INPUT) {
+                return true;
+            }
+            batch.add(next);
+        }
+        return false;
+    }
+
+    private void flush(List<IMessage> batch) {
+        int size = batch.size();
+        long start = System.nanoTime();
+        try {
+            delegate.sendBatch(batch);
+            sent.addAndGet(size);
+        } catch (RuntimeException e) {
+            failed.addAndGet(size);
+        }
+        providerCalls.incrementAndGet();
+        adapt(size, System.nanoTime() - start);
+    }
+
+    private void adapt(int size, long latencyNanos) {
+        long average = averageLatencyNanos == 0 ? latencyNanos : (averageLatencyNanos * 4 + latencyNanos) / 5;
+        averageLatencyNanos = average;
+        int target = targetBatchSize;
+        if (average > latencyBudgetNanos) {
+            targetBatchSize = Math.max(1, target / 2);
+        } else if (size >= target) {
+            // The batch filled before the linger deadline: traffic can use bigger round trips
+            targetBatchSize = Math.min(maxBatchSize, target + Math.max(1, target / 4));
+        }
+    }
+}
+
+// Compares direct sends with micro-batched sends against a bulk stub provider (2ms per request plus 10us per message)
+class NotificationMicroBatcherBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int producers = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        AtomicLong roundTrips = new AtomicLong();
+        BaseNotificationHandler provider = new EmailNotificationHandler() {
+            @Override
+            public void send(IMessage message) {
+                sendBatch(List.of(message));
+            }
+
+            @Override
+            public void sendBatch(List<IMessage> messages) {
+                roundTrips.incrementAndGet();
+                LockSupport.parkNanos(2_000_000 + 10_000L * messages.size());
+            }
+        };
+        IMessage message = new EmailMessage("1", "Your order has shipped", "customer@example.com");
+
+        NotificationHandlerFactory handlerFactory = NotificationHandlerFactory.getInstance();
+        handlerFactory.addHandler(provider);
+        long elapsedMs = produce(handlerFactory, message, messages, producers);
+        System.out.println("direct : " + messages + " messages, " + roundTrips.getAndSet(0) + " provider calls, "
+                + elapsedMs + " ms (" + messages * 1000L / Math.max(1, elapsedMs) + " msgs/s)");
+
+        handlerFactory.enableMicroBatching(500, 5, 100);
+        MicroBatchingNotificationHandler batcher = (MicroBatchingNotificationHandler) handlerFactory.getHandler(Channel.EMAIL);
+        long start = System.nanoTime();
+        produce(handlerFactory, message, messages, producers);
+        handlerFactory.disableMicroBatching();
+        elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("batched: " + batcher.getSentCount() + " messages, " + roundTrips.get() + " provider calls, "
+                + elapsedMs + " ms (" + messages * 1000L / Math.max(1, elapsedMs) + " msgs/s), final target batch "
+                + batcher.getTargetBatchSize() + ", avg provider latency " + batcher.getAverageLatencyNanos() / 1000 + " us");
+    }
+
+    private static long produce(NotificationHandlerFactory handlerFactory, IMessage message, int messages, int producers) throws InterruptedException {
+        Thread[] threads = new Thread[producers];
+        long start = System.nanoTime();
+        for (int t = 0; t < producers; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < messages / producers; i++) {
+                    handlerFactory.getHandler(Channel.EMAIL).send(message);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
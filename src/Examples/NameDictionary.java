@@ -0,0 +1,36 @@
+package Examples;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Class to map strings to dense ids so each distinct name or extension is stored once
+class NameDictionary {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    public int intern(String value) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+
+    // Method to look up an id without interning; -1 if the string is unknown
+    public int find(String value) {
+        Integer id = ids.get(value);
+        return id == null ? -1 : id;
+    }
+
+    public String lookup(int id) {
+        return values.get(id);
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
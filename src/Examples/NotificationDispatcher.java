@@ -0,0 +1,404 @@
+package Examples;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Priority of a notification request; the weight is its share of a channel's sends under weighted-fair scheduling
+enum MessagePriority {
+    HIGH(8),   // order confirmations, payments
+    NORMAL(3), // shipping updates
+    LOW(1);    // marketing, lightning deals
+
+    private final int weight;
+
+    MessagePriority(int weight) {
+        this.weight = weight;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+}
+
+/*
+ * Asynchronous front end for the notification handlers with one bounded queue per (Channel, MessagePriority).
+ * Each channel has its own worker pool, so a slow SMS provider never holds up email. Within a channel the
+ * workers pick the next queue either strictly by priority or by smooth weighted round robin over the non-empty
+ * queues; with weighted-fair scheduling every priority keeps a guaranteed share, so a flood of LOW marketing
+ * traffic can slow itself down but never starve HIGH order confirmations (nor is LOW starved by HIGH).
+ */
+class PriorityNotificationDispatcher implements AutoCloseable {
+    enum Scheduling { STRICT, WEIGHTED_FAIR }
+
+    private static final MessagePriority[] PRIORITIES = MessagePriority.values();
+
+    private final Scheduling scheduling;
+    private final Map<Channel, ChannelLane> lanes = new EnumMap<>(Channel.class);
+    private final List<Thread> workers = new ArrayList<>();
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    public PriorityNotificationDispatcher(NotificationHandlerFactory handlerFactory) {
+        this(handlerFactory, 10_000, 4, Scheduling.WEIGHTED_FAIR);
+    }
+
+    // Lanes are created for every channel that has a handler registered at construction time
+    public PriorityNotificationDispatcher(NotificationHandlerFactory handlerFactory, int queueCapacity, int workersPerChannel, Scheduling scheduling) {
+        if (queueCapacity <= 0 || workersPerChannel <= 0) {
+            throw new IllegalArgumentException("Queue capacity and workers per channel must be positive");
+        }
+        this.scheduling = scheduling;
+        for (Channel channel : Channel.values()) {
+            BaseNotificationHandler handler = handlerFactory.getHandler(channel);
+            if (handler == null) {
+                continue;
+            }
+            ChannelLane lane = new ChannelLane(handler, queueCapacity);
+            lanes.put(channel, lane);
+            for (int i = 0; i < workersPerChannel; i++) {
+                Thread worker = new Thread(() -> workLoop(lane), "notifications-" + channel + "-" + i);
+                worker.setDaemon(true);
+                workers.add(worker);
+            }
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+    }
+
+    // Method to enqueue without blocking; false means that priority's queue for the channel is full
+    public boolean submit(IMessage message, MessagePriority priority) {
+        closeLock.readLock().lock();
+        try {
+            checkRunning();
+            return lane(message.getChannel()).offer(new Envelope(message, priority));
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    // Method to enqueue, waiting up to timeout for room in the queue; close() waits for such callers
+    public boolean submit(IMessage message, MessagePriority priority, long timeout, TimeUnit unit) throws InterruptedException {
+        closeLock.readLock().lock();
+        try {
+            checkRunning();
+            return lane(message.getChannel()).offer(new Envelope(message, priority), timeout, unit);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    public QueueMetrics metrics(Channel channel, MessagePriority priority) {
+        return lane(channel).metrics[priority.ordinal()];
+    }
+
+    public int queueDepth(Channel channel, MessagePriority priority) {
+        return metrics(channel, priority).depth();
+    }
+
+    // Submit-to-sent latency percentile for a priority across all channels
+    public long latencyPercentileNanos(MessagePriority priority, double percentile) {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (ChannelLane lane : lanes.values()) {
+            merged.add(lane.metrics[priority.ordinal()].latency);
+        }
+        return merged.percentile(percentile);
+    }
+
+    // Stops accepting messages, lets the workers drain what is queued and waits for them. Taking the write lock waits
+    // out submits in progress, so every accepted message has its pending permit before a worker sees running == false.
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        boolean interrupted = false;
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true; // keep waiting so queued messages are not abandoned, restore the flag afterwards
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ChannelLane lane(Channel channel) {
+        ChannelLane lane = lanes.get(channel);
+        if (lane == null) {
+            throw new IllegalStateException("No handler registered for channel " + channel);
+        }
+        return lane;
+    }
+
+    private void checkRunning() {
+        if (!running) {
+            throw new IllegalStateException("Dispatcher is closed");
+        }
+    }
+
+    private void workLoop(ChannelLane lane) {
+        while (running || lane.pending.availablePermits() > 0) {
+            try {
+                if (!lane.pending.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            Envelope envelope = lane.next();
+            QueueMetrics metrics = lane.metrics[envelope.priority.ordinal()];
+            try {
+                lane.handler.send(envelope.message);
+                metrics.sent.increment();
+            } catch (RuntimeException e) {
+                metrics.failed.increment();
+            } finally {
+                metrics.latency.record(System.nanoTime() - envelope.enqueuedNanos);
+            }
+        }
+    }
+
+    private static final class Envelope {
+        final IMessage message;
+        final MessagePriority priority;
+        final long enqueuedNanos = System.nanoTime();
+
+        Envelope(IMessage message, MessagePriority priority) {
+            this.message = message;
+            this.priority = priority;
+        }
+    }
+
+    // Queues, metrics and scheduler state of one channel; pending counts queued messages across all priorities
+    private final class ChannelLane {
+        final BaseNotificationHandler handler;
+        final List<BlockingQueue<Envelope>> queues;
+        final QueueMetrics[] metrics;
+        final Semaphore pending = new Semaphore(0);
+        final int[] currentWeight = new int[PRIORITIES.length];
+
+        ChannelLane(BaseNotificationHandler handler, int queueCapacity) {
+            this.handler = handler;
+            this.queues = new ArrayList<>(PRIORITIES.length);
+            this.metrics = new QueueMetrics[PRIORITIES.length];
+            for (int i = 0; i < PRIORITIES.length; i++) {
+                queues.add(new ArrayBlockingQueue<>(queueCapacity));
+                metrics[i] = new QueueMetrics(queues.get(i));
+            }
+        }
+
+        boolean offer(Envelope envelope) {
+            return accepted(queues.get(envelope.priority.ordinal()).offer(envelope), envelope);
+        }
+
+        boolean offer(Envelope envelope, long timeout, TimeUnit unit) throws InterruptedException {
+            return accepted(queues.get(envelope.priority.ordinal()).offer(envelope, timeout, unit), envelope);
+        }
+
+        private boolean accepted(boolean accepted, Envelope envelope) {
+            if (accepted) {
+                metrics[envelope.priority.ordinal()].submitted.increment();
+                pending.release();
+            } else {
+                metrics[envelope.priority.ordinal()].rejected.increment();
+            }
+            return accepted;
+        }
+
+        // Takes the next message by the scheduling policy. Workers only call this after taking a pending permit,
+        // and messages are queued before their permit is released, so one of the queues is always non-empty.
+        synchronized Envelope next() {
+            int chosen = -1;
+            if (scheduling == Scheduling.STRICT) {
+                for (int i = 0; i < queues.size() && chosen < 0; i++) {
+                    if (!queues.get(i).isEmpty()) {
+                        chosen = i;
+                    }
+                }
+            } else {
+                // Smooth weighted round robin (as in nginx upstreams) over the queues that still have messages
+                int totalWeight = 0;
+                for (int i = 0; i < queues.size(); i++) {
+                    if (!queues.get(i).isEmpty()) {
+                        currentWeight[i] += PRIORITIES[i].getWeight();
+                        totalWeight += PRIORITIES[i].getWeight();
+                        if (chosen < 0 || currentWeight[i] > currentWeight[chosen]) {
+                            chosen = i;
+                        }
+                    }
+                }
+                if (chosen >= 0) {
+                    currentWeight[chosen] -= totalWeight;
+                }
+            }
+            if (chosen < 0) {
+                throw new IllegalStateException("Pending permit without a queued message");
+            }
+            return queues.get(chosen).poll();
+        }
+    }
+}
+
+// Counters, depth and submit-to-sent latency of one (Channel, MessagePriority) queue
+class QueueMetrics {
+    final LongAdder submitted = new LongAdder();
+    final LongAdder rejected = new LongAdder();
+    final LongAdder sent = new LongAdder();
+    final LongAdder failed = new LongAdder();
+    final LatencyHistogram latency = new LatencyHistogram();
+    private final BlockingQueue<?> queue;
+
+    QueueMetrics(BlockingQueue<?> queue) {
+        this.queue = queue;
+    }
+
+    public int depth() {
+        return queue.size();
+    }
+
+    public long submittedCount() {
+        return submitted.sum();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    public long sentCount() {
+        return sent.sum();
+    }
+
+    public long failedCount() {
+        return failed.sum();
+    }
+
+    public long latencyPercentileNanos(double percentile) {
+        return latency.percentile(percentile);
+    }
+}
+
+// Lock-free log-linear histogram: four buckets per power of two, so percentiles are within 25% of the true value
+class LatencyHistogram {
+    private final AtomicLongArray buckets = new AtomicLongArray(256);
+
+    void record(long nanos) {
+        buckets.incrementAndGet(bucketOf(Math.max(nanos, 1)));
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.addAndGet(i, other.buckets.get(i));
+        }
+    }
+
+    // Upper bound of the bucket holding the given percentile (0-100), or 0 when nothing was recorded
+    long percentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            total += buckets.get(i);
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank && seen > 0) {
+                return upperBoundOf(i);
+            }
+        }
+        return 0;
+    }
+
+    private static int bucketOf(long value) {
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent < 2) {
+            return (int) value;
+        }
+        return exponent * 4 + (int) ((value >> (exponent - 2)) & 3);
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < 8) {
+            return bucket;
+        }
+        int exponent = bucket / 4;
+        long subBucket = bucket % 4;
+        return ((5 + subBucket) << (exponent - 2)) - 1;
+    }
+}
+
+// Overloads the dispatcher with a mostly-marketing mix against a 100 microsecond stub provider and reports latency by priority
+class NotificationDispatcherBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        NotificationHandlerFactory handlerFactory = NotificationHandlerFactory.getInstance();
+        handlerFactory.addHandler(new EmailNotificationHandler() {
+            @Override
+            public void send(IMessage message) {
+                LockSupport.parkNanos(100_000);
+            }
+        });
+        handlerFactory.addHandler(new SMSNotificationHandler() {
+            @Override
+            public void send(IMessage message) {
+                LockSupport.parkNanos(100_000);
+            }
+        });
+        IMessage email = new EmailMessage("1", "Your order has shipped", "customer@example.com");
+        IMessage sms = new SMSMessage("2", "Lightning deal starts now", "5550100");
+
+        for (PriorityNotificationDispatcher.Scheduling scheduling : PriorityNotificationDispatcher.Scheduling.values()) {
+            PriorityNotificationDispatcher dispatcher = new PriorityNotificationDispatcher(handlerFactory, 2_000, 8, scheduling);
+            int producers = 4;
+            Thread[] threads = new Thread[producers];
+            long start = System.nanoTime();
+            for (int t = 0; t < producers; t++) {
+                threads[t] = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    try {
+                        for (int i = 0; i < messages / producers; i++) {
+                            int roll = random.nextInt(100);
+                            MessagePriority priority = roll < 10 ? MessagePriority.HIGH : roll < 30 ? MessagePriority.NORMAL : MessagePriority.LOW;
+                            dispatcher.submit(random.nextBoolean() ? email : sms, priority, 1, TimeUnit.SECONDS);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            dispatcher.close();
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.println(scheduling + " (" + elapsedMs + " ms):");
+            for (MessagePriority priority : MessagePriority.values()) {
+                long sent = dispatcher.metrics(Channel.EMAIL, priority).sentCount() + dispatcher.metrics(Channel.SMS, priority).sentCount();
+                long rejected = dispatcher.metrics(Channel.EMAIL, priority).rejectedCount() + dispatcher.metrics(Channel.SMS, priority).rejectedCount();
+                System.out.printf("  %-6s sent %7d, rejected %6d, p50 %8.2f ms, p99 %8.2f ms%n", priority, sent, rejected,
+                        dispatcher.latencyPercentileNanos(priority, 50) / 1e6, dispatcher.latencyPercentileNanos(priority, 99) / 1e6);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package Examples;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Singleton factory class for managing notification handlers
+class NotificationHandlerFactory {
+    private static NotificationHandlerFactory instance = null;
+    private Map<Channel, BaseNotificationHandler> handlers;
+
+    private NotificationHandlerFactory() {
+        handlers = new ConcurrentHashMap<>();
+    }
+
+    public static NotificationHandlerFactory getInstance() {
+        if (instance == null) {
+            instance = new NotificationHandlerFactory();
+        }
+        return instance;
+    }
+
+    public void addHandler(BaseNotificationHandler handler) {
+        handlers.put(handler.getChannel(), handler);
+    }
+
+    public BaseNotificationHandler getHandler(Channel channel) {
+        return handlers.get(channel);
+    }
+
+    // Puts an adaptive micro-batcher in front of every registered handler that does not have one yet
+    public void enableMicroBatching(int maxBatchSize, long lingerMillis, long latencyBudgetMillis) {
+        for (Map.Entry<Channel, BaseNotificationHandler> entry : handlers.entrySet()) {
+            if (!(entry.getValue() instanceof MicroBatchingNotificationHandler)) {
+                entry.setValue(new MicroBatchingNotificationHandler(entry.getValue(), maxBatchSize, lingerMillis, latencyBudgetMillis));
+            }
+        }
+    }
+
+    // Flushes and removes the micro-batchers, restoring the handlers they wrapped; a sender still holding a
+    // batcher after the swap is passed through to the wrapped handler
+    public void disableMicroBatching() {
+        for (Map.Entry<Channel, BaseNotificationHandler> entry : handlers.entrySet()) {
+            if (entry.getValue() instanceof MicroBatchingNotificationHandler) {
+                MicroBatchingNotificationHandler batcher = (MicroBatchingNotificationHandler) entry.getValue();
+                entry.setValue(batcher.getDelegate());
+                batcher.close();
+            }
+        }
+    }
+}
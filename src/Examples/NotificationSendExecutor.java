@@ -0,0 +1,270 @@
+package Examples;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Runs BaseNotificationHandler.send calls concurrently, one task per message, for handlers that block on slow
+ * provider I/O. In VIRTUAL_THREADS mode each send gets its own virtual thread, so thousands of sends can wait on
+ * the network at once for the cost of a few KB each; the executor is looked up reflectively so the class still
+ * compiles and runs on JDKs without virtual threads, where it falls back to PLATFORM_THREADS (a thread per send).
+ * FIXED_POOL is the classic bounded pool, kept for comparison. Whatever the mode, a per-channel semaphore caps
+ * in-flight sends so a provider's rate limit is respected; submission blocks while a channel is at its limit,
+ * but never past the batch deadline. A permit goes back when its send finishes or when the send is cancelled
+ * before it started.
+ */
+class NotificationSendExecutor implements AutoCloseable {
+    enum Mode { VIRTUAL_THREADS, PLATFORM_THREADS, FIXED_POOL }
+
+    private final NotificationHandlerFactory handlerFactory;
+    private final ExecutorService executor;
+    private final Mode mode;
+    private final Map<Channel, Semaphore> limits = new EnumMap<>(Channel.class);
+
+    private NotificationSendExecutor(NotificationHandlerFactory handlerFactory, ExecutorService executor, Mode mode, int maxInFlightPerChannel) {
+        if (maxInFlightPerChannel <= 0) {
+            throw new IllegalArgumentException("Per-channel limit must be positive");
+        }
+        this.handlerFactory = handlerFactory;
+        this.executor = executor;
+        this.mode = mode;
+        for (Channel channel : Channel.values()) {
+            limits.put(channel, new Semaphore(maxInFlightPerChannel));
+        }
+    }
+
+    // Virtual thread per send when the JDK provides it, otherwise a platform thread per send
+    public static NotificationSendExecutor perMessageThreads(NotificationHandlerFactory handlerFactory, int maxInFlightPerChannel) {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            return new NotificationSendExecutor(handlerFactory, executor, Mode.VIRTUAL_THREADS, maxInFlightPerChannel);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            // Pre-21 JDK, or virtual threads still behind --enable-preview
+            return new NotificationSendExecutor(handlerFactory, Executors.newCachedThreadPool(), Mode.PLATFORM_THREADS, maxInFlightPerChannel);
+        }
+    }
+
+    public static NotificationSendExecutor fixedPool(NotificationHandlerFactory handlerFactory, int threads, int maxInFlightPerChannel) {
+        return new NotificationSendExecutor(handlerFactory, Executors.newFixedThreadPool(threads), Mode.FIXED_POOL, maxInFlightPerChannel);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int availablePermits(Channel channel) {
+        return limits.get(channel).availablePermits();
+    }
+
+    // Sends the whole batch and returns only when every send has finished
+    public BatchResult sendAll(List<? extends IMessage> messages) throws InterruptedException {
+        return sendAll(messages, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /*
+     * Structured batch: every send started here has finished, failed or been cancelled (interrupted) by the time this
+     * method returns. Sends still running at the deadline, or when the caller is interrupted, are cancelled; messages
+     * that could not get a permit before the deadline are never started. Both count as timed out.
+     */
+    public BatchResult sendAll(List<? extends IMessage> messages, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = timeout == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + unit.toNanos(timeout);
+        List<Future<?>> futures = new ArrayList<>(messages.size());
+        try {
+            BatchResult result = new BatchResult();
+            for (IMessage message : messages) {
+                Future<?> future = submit(message, deadline);
+                if (future == null) {
+                    result.timedOut++;
+                } else {
+                    futures.add(future);
+                }
+            }
+            for (Future<?> future : futures) {
+                try {
+                    if (deadline == Long.MAX_VALUE) {
+                        future.get();
+                    } else {
+                        future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    }
+                    result.sent++;
+                } catch (ExecutionException e) {
+                    result.failures.add(e.getCause());
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    result.timedOut++;
+                }
+            }
+            return result;
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    // Returns null if no permit for the message's channel freed up before the deadline
+    private Future<?> submit(IMessage message, long deadline) throws InterruptedException {
+        BaseNotificationHandler handler = handlerFactory.getHandler(message.getChannel());
+        if (handler == null) {
+            throw new IllegalStateException("No handler registered for channel " + message.getChannel());
+        }
+        Semaphore limit = limits.get(message.getChannel());
+        if (deadline == Long.MAX_VALUE) {
+            limit.acquire();
+        } else if (!limit.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            return null;
+        }
+        SendTask task = new SendTask(handler, message, limit);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.releasePermit();
+            throw e;
+        }
+        return task;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        boolean interrupted = false;
+        while (!executor.isTerminated()) {
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+                executor.shutdownNow(); // stop waiting on providers, then wait for the sends to unwind
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * One send holding one permit. The permit is released exactly once: when the send finishes, or from done()
+     * when the task is cancelled before it ever ran (a task cancelled while queued never runs its body).
+     */
+    private static final class SendTask extends FutureTask<Void> {
+        private final Semaphore limit;
+        private final AtomicBoolean holdsPermit = new AtomicBoolean(true);
+        private volatile boolean started;
+
+        SendTask(BaseNotificationHandler handler, IMessage message, Semaphore limit) {
+            super(() -> {
+                handler.send(message);
+                return null;
+            });
+            this.limit = limit;
+        }
+
+        @Override
+        public void run() {
+            started = true;
+            try {
+                super.run();
+            } finally {
+                releasePermit();
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (!started) {
+                releasePermit();
+            }
+        }
+
+        void releasePermit() {
+            if (holdsPermit.compareAndSet(true, false)) {
+                limit.release();
+            }
+        }
+    }
+}
+
+// Outcome of one NotificationSendExecutor.sendAll call
+class BatchResult {
+    int sent;
+    int timedOut;
+    final List<Throwable> failures = new ArrayList<>();
+
+    public int getSent() {
+        return sent;
+    }
+
+    public int getTimedOut() {
+        return timedOut;
+    }
+
+    public List<Throwable> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult [sent: " + sent + ", failed: " + failures.size() + ", timed out: " + timedOut + "]";
+    }
+}
+
+// Compares per-message threads with a fixed pool against a stub provider that takes 50ms per send
+class NotificationSendExecutorBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int poolThreads = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int perChannelLimit = args.length > 2 ? Integer.parseInt(args[2]) : 1_000;
+        NotificationHandlerFactory handlerFactory = NotificationHandlerFactory.getInstance();
+        handlerFactory.addHandler(new EmailNotificationHandler() {
+            @Override
+            public void send(IMessage message) {
+                stubProviderCall();
+            }
+        });
+        handlerFactory.addHandler(new SMSNotificationHandler() {
+            @Override
+            public void send(IMessage message) {
+                stubProviderCall();
+            }
+        });
+        List<IMessage> batch = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++) {
+            batch.add(i % 2 == 0 ? new EmailMessage(String.valueOf(i), "Your order has shipped", "customer" + i + "@example.com")
+                    : new SMSMessage(String.valueOf(i), "Your order has shipped", "555" + i));
+        }
+
+        run(NotificationSendExecutor.perMessageThreads(handlerFactory, perChannelLimit), batch);
+        run(NotificationSendExecutor.fixedPool(handlerFactory, poolThreads, perChannelLimit), batch);
+    }
+
+    private static void run(NotificationSendExecutor executor, List<IMessage> batch) throws InterruptedException {
+        try (executor) {
+            long start = System.nanoTime();
+            BatchResult result = executor.sendAll(batch);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            System.out.println(executor.getMode() + ": " + result + " in " + elapsedMs + " ms ("
+                    + batch.size() * 1000L / Math.max(1, elapsedMs) + " msgs/s)");
+        }
+    }
+
+    private static void stubProviderCall() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Send interrupted", e);
+        }
+    }
+}
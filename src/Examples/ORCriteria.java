@@ -0,0 +1,25 @@
+package Examples;
+
+// Class to represent OR criteria
+class ORCriteria extends ICritera {
+    private ICritera criteria1;
+    private ICritera criteria2;
+
+    public ORCriteria(ICritera criteria1, ICritera criteria2) {
+        this.criteria1 = criteria1;
+        this.criteria2 = criteria2;
+    }
+
+    public ICritera getCriteria1() {
+        return criteria1;
+    }
+
+    public ICritera getCriteria2() {
+        return criteria2;
+    }
+
+    @Override
+    public boolean apply(IFileNode file) {
+        return criteria1.apply(file) || criteria2.apply(file);
+    }
+}
@@ -0,0 +1,21 @@
+package Examples;
+
+// Class for SMS messages
+class SMSMessage extends IMessage {
+    private String mobileNumber;
+
+    public SMSMessage(String id, String message, String mobileNumber) {
+        super(id, message);
+        this.mobileNumber = mobileNumber;
+    }
+
+    @Override
+    public Channel getChannel() {
+        return Channel.SMS;
+    }
+
+    @Override
+    public String toString() {
+        return "SMS message [id: " + id + ", message: " + message + "] to " + mobileNumber;
+    }
+}
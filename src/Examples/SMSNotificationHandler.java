@@ -0,0 +1,15 @@
+package Examples;
+
+// Class for handling SMS notifications
+class SMSNotificationHandler extends BaseNotificationHandler {
+    @Override
+    public void send(IMessage message) {
+        // Custom logic for sending SMS
+        System.out.println("Sent " + message);
+    }
+
+    @Override
+    public Channel getChannel() {
+        return Channel.SMS;
+    }
+}
@@ -0,0 +1,6 @@
+package Examples;
+
+// Enum to represent the type of file node
+enum Type {
+    FILE, DIRECTORY, SYMLINK;
+}
@@ -100,22 +100,3 @@ class UnboundedSet_TTLCache {
         System.out.println(unboundedSetTtlCache.contains("A"));
     }
 }
-
-class Pair<K, V> {
-    private final K key;
-    private final V value;
-
-    public Pair(K key, V value) {
-        this.key = key;
-        this.value = value;
-    }
-
-    public K getKey() {
-        return key;
-    }
-
-    public V getValue() {
-        return value;
-    }
-}
-